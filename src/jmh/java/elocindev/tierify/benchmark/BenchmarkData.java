@@ -0,0 +1,116 @@
+package elocindev.tierify.benchmark;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import draylar.tiered.api.AttributeTemplate;
+import draylar.tiered.api.ItemVerifier;
+import draylar.tiered.api.PotentialAttribute;
+import elocindev.tierify.Tierify;
+import net.minecraft.Bootstrap;
+import net.minecraft.SharedConstants;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.Registry;
+import net.minecraft.registry.SimpleRegistry;
+import net.minecraft.text.Style;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.random.Random;
+
+/**
+ * Synthetic items and attribute sets for the benchmarks.
+ * <p>
+ * Vanilla is bootstrapped once per fork. Synthetic items are registered on demand by briefly unfreezing the item registry, so
+ * item counts beyond vanilla can be measured without any mods installed.
+ */
+public class BenchmarkData {
+
+    private static final String[] QUALITIES = { "common", "uncommon", "rare", "epic", "legendary", "mythic" };
+    private static final String[] ATTRIBUTE_TYPES = { "minecraft:generic.attack_damage", "minecraft:generic.attack_speed", "minecraft:generic.armor",
+            "minecraft:generic.armor_toughness", "minecraft:generic.movement_speed", "minecraft:generic.max_health" };
+    private static final int VERIFIERS_PER_ATTRIBUTE = 4;
+
+    private static boolean bootstrapped = false;
+    private static final List<Item> SYNTHETIC_ITEMS = new ArrayList<>();
+
+    public static synchronized void bootstrap() {
+        if (!bootstrapped) {
+            SharedConstants.createGameVersion();
+            Bootstrap.initialize();
+            bootstrapped = true;
+        }
+    }
+
+    /**
+     * Returns the given number of synthetic items, registering any that do not exist yet.
+     */
+    public static synchronized List<Item> items(int count) {
+        bootstrap();
+        if (SYNTHETIC_ITEMS.size() < count) {
+            SimpleRegistry<Item> registry = (SimpleRegistry<Item>) Registries.ITEM;
+            unfreeze(registry);
+            for (int i = SYNTHETIC_ITEMS.size(); i < count; i++) {
+                SYNTHETIC_ITEMS.add(Registry.register(registry, new Identifier("bench", "item_" + i), new Item(new Item.Settings())));
+            }
+            registry.freeze();
+        }
+        return new ArrayList<>(SYNTHETIC_ITEMS.subList(0, count));
+    }
+
+    /**
+     * Creates attributes with id verifiers spread over the given items, qualities in their ids and a few vanilla attribute templates each.
+     */
+    public static Map<Identifier, PotentialAttribute> attributes(int attributeCount, List<Item> items, long seed) {
+        Random random = Random.create(seed);
+        Map<Identifier, PotentialAttribute> attributes = new HashMap<>();
+        for (int i = 0; i < attributeCount; i++) {
+            String id = "bench:" + QUALITIES[random.nextInt(QUALITIES.length)] + "_" + i;
+
+            List<ItemVerifier> verifiers = new ArrayList<>();
+            for (int u = 0; u < VERIFIERS_PER_ATTRIBUTE; u++) {
+                verifiers.add(new ItemVerifier(Registries.ITEM.getId(items.get(random.nextInt(items.size()))).toString(), null));
+            }
+
+            List<AttributeTemplate> templates = new ArrayList<>();
+            int templateCount = 1 + random.nextInt(3);
+            for (int u = 0; u < templateCount; u++) {
+                EntityAttributeModifier modifier = new EntityAttributeModifier("bench_" + i + "_" + u, random.nextDouble(),
+                        EntityAttributeModifier.Operation.values()[random.nextInt(EntityAttributeModifier.Operation.values().length)]);
+                templates.add(new AttributeTemplate(ATTRIBUTE_TYPES[random.nextInt(ATTRIBUTE_TYPES.length)], modifier,
+                        new EquipmentSlot[] { EquipmentSlot.MAINHAND }, new EquipmentSlot[] { EquipmentSlot.OFFHAND }));
+            }
+
+            attributes.put(new Identifier(id), new PotentialAttribute(id, verifiers, random.nextInt(30), Style.EMPTY, templates, null));
+        }
+        return attributes;
+    }
+
+    /**
+     * Makes the given attributes the loaded ones and builds the item index like a reload would.
+     */
+    public static void install(Map<Identifier, PotentialAttribute> attributes) {
+        Tierify.ATTRIBUTE_DATA_LOADER.setItemAttributes(attributes);
+        ItemVerifier.invalidateCache();
+        Tierify.ATTRIBUTE_DATA_LOADER.rebuildItemAttributeIndex();
+    }
+
+    private static void unfreeze(SimpleRegistry<Item> registry) {
+        try {
+            Field frozen = SimpleRegistry.class.getDeclaredField("frozen");
+            frozen.setAccessible(true);
+            frozen.setBoolean(registry, false);
+            // new items create their registry entry in the constructor, which needs the intrusive holder map
+            Field intrusiveValueToEntry = SimpleRegistry.class.getDeclaredField("intrusiveValueToEntry");
+            intrusiveValueToEntry.setAccessible(true);
+            intrusiveValueToEntry.set(registry, new IdentityHashMap<>());
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("Could not unfreeze the item registry", exception);
+        }
+    }
+}
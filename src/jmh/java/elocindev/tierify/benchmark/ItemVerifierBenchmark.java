@@ -0,0 +1,82 @@
+package elocindev.tierify.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import draylar.tiered.api.ItemVerifier;
+import draylar.tiered.api.PotentialAttribute;
+import net.minecraft.item.Item;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+/**
+ * Verifier checks with a warm cache, and the cost of resolving a verifier after tags or mappings changed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ItemVerifierBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int attributeCount;
+
+    @Param({ "1000", "10000", "50000" })
+    public int itemCount;
+
+    private ItemVerifier[] verifiers;
+    private Item[] items;
+    private Identifier[] itemIds;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<Item> itemList = BenchmarkData.items(itemCount);
+        Map<Identifier, PotentialAttribute> attributes = BenchmarkData.attributes(attributeCount, itemList, 42L);
+        BenchmarkData.install(attributes);
+
+        List<ItemVerifier> verifierList = new ArrayList<>();
+        attributes.values().forEach(attribute -> verifierList.addAll(attribute.getVerifiers()));
+        verifiers = verifierList.toArray(new ItemVerifier[0]);
+        items = itemList.toArray(new Item[0]);
+        itemIds = new Identifier[items.length];
+        for (int i = 0; i < items.length; i++) {
+            itemIds[i] = Registries.ITEM.getId(items[i]);
+        }
+    }
+
+    private int nextIndex() {
+        // wraps to 0 instead of overflowing, callers take the index modulo their array lengths
+        next = (next + 1) & Integer.MAX_VALUE;
+        return next;
+    }
+
+    @Benchmark
+    public boolean isValidItem() {
+        int index = nextIndex();
+        return verifiers[index % verifiers.length].isValid(items[index % items.length]);
+    }
+
+    @Benchmark
+    public boolean isValidIdentifier() {
+        int index = nextIndex();
+        return verifiers[index % verifiers.length].isValid(itemIds[index % itemIds.length]);
+    }
+
+    @Benchmark
+    public boolean resolveAfterInvalidation() {
+        ItemVerifier.invalidateCache();
+        int index = nextIndex();
+        return verifiers[index % verifiers.length].isValid(items[index % items.length]);
+    }
+}
@@ -0,0 +1,93 @@
+package elocindev.tierify.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.Multimap;
+
+import draylar.tiered.api.AttributeTemplate;
+import draylar.tiered.api.ModifierUtils;
+import draylar.tiered.api.PotentialAttribute;
+import elocindev.tierify.Tierify;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttribute;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.Identifier;
+
+/**
+ * Attribute modifier realization, both for a single template and through the attribute modifier callback that runs for every
+ * equipment change and tooltip.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ModifierBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int attributeCount;
+
+    @Param({ "1000", "10000", "50000" })
+    public int itemCount;
+
+    private AttributeTemplate[] templates;
+    private ItemStack[] stacks;
+    private final Multimap<EntityAttribute, EntityAttributeModifier> modifiers = ArrayListMultimap.create();
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<Item> items = BenchmarkData.items(itemCount);
+        Map<Identifier, PotentialAttribute> attributes = BenchmarkData.attributes(attributeCount, items, 42L);
+        BenchmarkData.install(attributes);
+
+        List<AttributeTemplate> templateList = new ArrayList<>();
+        attributes.values().forEach(attribute -> templateList.addAll(attribute.getAttributes()));
+        templates = templateList.toArray(new AttributeTemplate[0]);
+
+        // one tiered stack per item that has at least one valid attribute
+        List<ItemStack> stackList = new ArrayList<>();
+        for (Item item : items) {
+            Identifier attributeId = ModifierUtils.getRandomAttributeIDFor(null, item, false);
+            if (attributeId != null) {
+                ItemStack stack = new ItemStack(item);
+                stack.getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).putString(Tierify.NBT_SUBTAG_DATA_KEY, attributeId.toString());
+                stackList.add(stack);
+            }
+        }
+        stacks = stackList.toArray(new ItemStack[0]);
+    }
+
+    private int nextIndex() {
+        // wraps to 0 instead of overflowing, callers take the index modulo their array lengths
+        next = (next + 1) & Integer.MAX_VALUE;
+        return next;
+    }
+
+    @Benchmark
+    public Multimap<EntityAttribute, EntityAttributeModifier> realize() {
+        modifiers.clear();
+        templates[nextIndex() % templates.length].realize(modifiers, EquipmentSlot.MAINHAND);
+        return modifiers;
+    }
+
+    @Benchmark
+    public Multimap<EntityAttribute, EntityAttributeModifier> modifierCallback() {
+        modifiers.clear();
+        Tierify.addTierModifiers(stacks[nextIndex() % stacks.length], EquipmentSlot.MAINHAND, modifiers);
+        return modifiers;
+    }
+}
@@ -0,0 +1,69 @@
+package elocindev.tierify.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import draylar.tiered.api.ModifierUtils;
+import elocindev.tierify.Tierify;
+import net.minecraft.item.Item;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.random.Random;
+
+/**
+ * Tier rolls as done for loot, mob equipment, crafting and reforging.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TierRollBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int attributeCount;
+
+    @Param({ "1000", "10000", "50000" })
+    public int itemCount;
+
+    private Item[] items;
+    private List<String> qualities;
+    private Random random;
+    private int next;
+
+    @Setup
+    public void setup() {
+        List<Item> itemList = BenchmarkData.items(itemCount);
+        BenchmarkData.install(BenchmarkData.attributes(attributeCount, itemList, 42L));
+        items = itemList.toArray(new Item[0]);
+        qualities = Tierify.CONFIG.tier_2_qualities;
+        random = Random.create(42L);
+    }
+
+    private Item nextItem() {
+        Item item = items[next];
+        next = (next + 1) % items.length;
+        return item;
+    }
+
+    @Benchmark
+    public Identifier randomAttribute() {
+        return ModifierUtils.getRandomAttributeIDFor(null, nextItem(), false, random);
+    }
+
+    @Benchmark
+    public Identifier randomReforgeAttribute() {
+        return ModifierUtils.getRandomAttributeIDFor(null, nextItem(), true, random);
+    }
+
+    @Benchmark
+    public Identifier randomAttributeForQuality() {
+        return ModifierUtils.getRandomAttributeForQuality(qualities, nextItem(), true, random);
+    }
+}
@@ -10,6 +10,11 @@ import net.minecraft.entity.attribute.EntityAttributeModifier;
 import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jetbrains.annotations.Nullable;
+
 /**
  * Stores information on an AttributeModifier template applied to an ItemStack.
  *
@@ -21,6 +26,9 @@ import net.minecraft.util.Identifier;
  */
 public class AttributeTemplate {
 
+    // unknown types that were already logged, loaded files report theirs through AttributeValidation instead
+    private static final Set<String> REPORTED_UNKNOWN_TYPES = ConcurrentHashMap.newKeySet();
+
     @SerializedName("type")
     private final String attributeTypeID;
 
@@ -65,14 +73,37 @@ public class AttributeTemplate {
      * @param slot
      */
     public void realize(Multimap<EntityAttribute, EntityAttributeModifier> multimap, EquipmentSlot slot) {
-        EntityAttributeModifier cloneModifier = new EntityAttributeModifier(Tierify.MODIFIERS[slot.getArmorStandSlotId()], entityAttributeModifier.getName() + "_" + slot.getName(),
-                entityAttributeModifier.getValue(), entityAttributeModifier.getOperation());
-
-        EntityAttribute key = Registries.ATTRIBUTE.get(new Identifier(attributeTypeID));
+        EntityAttribute key = getAttribute();
         if (key == null) {
-            Tierify.LOGGER.warn(String.format("%s was referenced as an attribute type, but it does not exist! A data file in /tiered/item_attributes/ has an invalid type property.", attributeTypeID));
+            warnUnknownAttribute();
         } else {
-            multimap.put(key, cloneModifier);
+            multimap.put(key, createModifier(slot));
         }
     }
+
+    /**
+     * Returns the {@link EntityAttribute} this template modifies, or null if the type does not exist.
+     */
+    @Nullable
+    public EntityAttribute getAttribute() {
+        Identifier id = Identifier.tryParse(attributeTypeID);
+        return id == null ? null : Registries.ATTRIBUTE.get(id);
+    }
+
+    /**
+     * Logs that the type of this template does not exist, once per type.
+     */
+    public void warnUnknownAttribute() {
+        if (REPORTED_UNKNOWN_TYPES.add(String.valueOf(attributeTypeID))) {
+            Tierify.LOGGER.warn("{} was referenced as an attribute type, but it does not exist! A data file in /tiered/item_attributes/ has an invalid type property.", attributeTypeID);
+        }
+    }
+
+    /**
+     * Creates the {@link EntityAttributeModifier} this template applies in the given slot. The result is immutable and may be shared.
+     */
+    public EntityAttributeModifier createModifier(EquipmentSlot slot) {
+        return new EntityAttributeModifier(Tierify.MODIFIERS[slot.getArmorStandSlotId()], entityAttributeModifier.getName() + "_" + slot.getName(),
+                entityAttributeModifier.getValue(), entityAttributeModifier.getOperation());
+    }
 }
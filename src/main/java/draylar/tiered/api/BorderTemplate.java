@@ -1,9 +1,5 @@
 package draylar.tiered.api;
 
-import java.util.ArrayList;
-import java.util.List;
-
-import net.minecraft.item.ItemStack;
 import net.minecraft.util.Identifier;
 
 public class BorderTemplate {
@@ -14,18 +10,14 @@ public class BorderTemplate {
     private final int startGradient;
     private final int endGradient;
     private final int backgroundGradient;
-    private final List<String> decider;
-    private List<ItemStack> stacks = new ArrayList<ItemStack>();
 
-    public BorderTemplate(int index, String texture, int startGradient, int endGradient, int backgroundGradient, List<String> decider) {
+    public BorderTemplate(int index, String texture, int startGradient, int endGradient, int backgroundGradient) {
         this.index = index;
         this.texture = texture;
         this.identifier = new Identifier("tiered", "textures/gui/" + this.texture + ".png");
         this.startGradient = startGradient;
         this.endGradient = endGradient;
         this.backgroundGradient = backgroundGradient;
-        this.decider = new ArrayList<String>();
-        this.decider.addAll(decider);
     }
 
     public int getIndex() {
@@ -52,23 +44,4 @@ public class BorderTemplate {
         return this.backgroundGradient;
     }
 
-    public List<String> getDecider() {
-        return this.decider;
-    }
-
-    public boolean containsDecider(String string) {
-        if (this.decider.contains(string))
-            return true;
-        return false;
-    }
-
-    public void addStack(ItemStack itemStack) {
-        if (!this.stacks.contains(itemStack))
-            this.stacks.add(itemStack);
-    }
-
-    public boolean containsStack(ItemStack itemStack) {
-        return this.stacks.contains(itemStack);
-    }
-
 }
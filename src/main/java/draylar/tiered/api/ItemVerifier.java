@@ -4,18 +4,26 @@ import elocindev.tierify.Tierify;
 import elocindev.tierify.data.VerifierMapping;
 import elocindev.tierify.util.TagParsingHelper;
 import net.minecraft.item.Item;
-import net.minecraft.item.ItemStack;
 import net.minecraft.registry.Registries;
+import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.registry.tag.TagKey;
 import net.minecraft.util.Identifier;
 
+import java.util.BitSet;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class ItemVerifier {
 
+    // bumped whenever tags or verifier mappings change, which makes every resolved verifier stale
+    private static final AtomicInteger cacheGeneration = new AtomicInteger();
+
     private final String id;
     private final String tag;
 
+    // Gson skips transient fields, so this is neither synced nor read from data files
+    private transient volatile ResolvedItems resolvedItems;
+
     public ItemVerifier(String id, String tag) {
         this.id = id;
         this.tag = tag;
@@ -30,7 +38,10 @@ public class ItemVerifier {
      * @return whether the check succeeded
      */
     public boolean isValid(Identifier itemID) {
-        return isValid(itemID.toString());
+        if (Registries.ITEM.containsId(itemID)) {
+            return isValid(Registries.ITEM.get(itemID));
+        }
+        return id != null && id.equals(itemID.toString());
     }
 
     /**
@@ -45,70 +56,109 @@ public class ItemVerifier {
      * @return whether the check succeeded
      */
     public boolean isValid(String itemID) {
+        // Check direct ID match
+        if (id != null && itemID.equals(id)) {
+            return true;
+        }
+        Identifier itemIdentifier = Identifier.tryParse(itemID);
+        return itemIdentifier != null && Registries.ITEM.containsId(itemIdentifier) && isValid(Registries.ITEM.get(itemIdentifier));
+    }
+
+    /**
+     * Returns whether the given {@link Item} is valid for this ItemVerifier, including mapped verifiers.
+     * <p>
+     * Resolution is cached per verifier as a set of raw item ids and refreshed after tags or verifier mappings are reloaded.
+     *
+     * @param item item to check against this verifier
+     * @return whether the check succeeded
+     */
+    public boolean isValid(Item item) {
+        return getValidItems().get(Registries.ITEM.getRawId(item));
+    }
+
+    /**
+     * Returns the raw ids of every item this verifier accepts. The returned set must not be modified.
+     */
+    public BitSet getValidItems() {
+        ResolvedItems resolved = resolvedItems;
+        int generation = cacheGeneration.get();
+        if (resolved == null || resolved.generation != generation) {
+            resolved = new ResolvedItems(generation, resolveValidItems());
+            resolvedItems = resolved;
+        }
+        return resolved.items;
+    }
+
+    private BitSet resolveValidItems() {
+        BitSet items = new BitSet(Registries.ITEM.size());
         // Check direct ID match
         if (id != null) {
-            if (itemID.equals(id)) {
-                return true;
-            }
+            addItem(items, id);
             // Check if this ID has mapped verifiers
-            return checkMappedVerifiers(id, itemID);
-        } 
+            addMappedVerifiers(items, id);
+        }
         // Check tag match
         else if (tag != null) {
-            TagKey<Item> itemTag = TagParsingHelper.createItemTagFromId(tag);
-            
-            if (itemTag != null) {
-                // Check direct tag membership
-                if (new ItemStack(Registries.ITEM.get(new Identifier(itemID))).isIn(itemTag)) {
-                    return true;
-                }
-                // Check if this tag has mapped verifiers
-                return checkMappedVerifiers(tag, itemID);
-            } else {
-                Tierify.LOGGER.error(tag + " was specified as an item verifier tag, but it does not exist!");
-            }
+            addTag(items, tag);
+            // Check if this tag has mapped verifiers
+            addMappedVerifiers(items, tag);
         }
-
-        return false;
+        return items;
     }
-    
+
     /**
-     * Checks if the item matches any mapped verifiers for the given base verifier.
-     * 
+     * Adds the items of any mapped verifiers for the given base verifier.
+     *
+     * @param items The set of raw item ids to add to
      * @param baseVerifier The base verifier (tag or id) to look up mappings for
-     * @param itemID The item ID to check
-     * @return true if the item matches any mapped verifier
      */
-    private boolean checkMappedVerifiers(String baseVerifier, String itemID) {
+    private static void addMappedVerifiers(BitSet items, String baseVerifier) {
         if (Tierify.VERIFIER_MAPPING_LOADER == null) {
-            return false;
+            return;
         }
-        
+
         List<VerifierMapping.MappedVerifier> mappedVerifiers = 
             Tierify.VERIFIER_MAPPING_LOADER.getMappedVerifiers(baseVerifier);
-        
+
         for (VerifierMapping.MappedVerifier mapped : mappedVerifiers) {
             if ("id".equals(mapped.getType())) {
-                // Check direct ID match
-                if (itemID.equals(mapped.getVerifier())) {
-                    return true;
-                }
+                addItem(items, mapped.getVerifier());
             } else if ("tag".equals(mapped.getType())) {
-                // Check tag membership
-                TagKey<Item> mappedTag = TagParsingHelper.createItemTagFromId(mapped.getVerifier());
-                if (new ItemStack(Registries.ITEM.get(new Identifier(itemID))).isIn(mappedTag)) {
-                    return true;
-                }
+                addTag(items, mapped.getVerifier());
             }
         }
-        
-        return false;
+    }
+
+    private static void addItem(BitSet items, String itemID) {
+        Identifier itemIdentifier = Identifier.tryParse(itemID);
+        if (itemIdentifier != null && Registries.ITEM.containsId(itemIdentifier)) {
+            items.set(Registries.ITEM.getRawId(Registries.ITEM.get(itemIdentifier)));
+        }
+    }
+
+    private static void addTag(BitSet items, String tagID) {
+        TagKey<Item> itemTag = TagParsingHelper.createItemTagFromId(tagID);
+        for (RegistryEntry<Item> entry : Registries.ITEM.iterateEntries(itemTag)) {
+            items.set(Registries.ITEM.getRawId(entry.value()));
+        }
+    }
+
+    /**
+     * Marks every resolved verifier as stale. Call after item tags or verifier mappings change.
+     */
+    public static void invalidateCache() {
+        // server and client tag loads and verifier mapping reloads may overlap in singleplayer
+        cacheGeneration.incrementAndGet();
     }
 
     public String getId() {
         return id;
     }
 
+    public String getTag() {
+        return tag;
+    }
+
     public TagKey<Item> getTagKey() {
         return TagParsingHelper.createItemTagFromId(tag);
     }
@@ -132,4 +182,14 @@ public class ItemVerifier {
         String otherTag = other.tag == null ? "" : other.tag;
         return thisId.equals(otherId) && thisTag.equals(otherTag);
     }
+
+    private static class ResolvedItems {
+        private final int generation;
+        private final BitSet items;
+
+        private ResolvedItems(int generation, BitSet items) {
+            this.generation = generation;
+            this.items = items;
+        }
+    }
 }
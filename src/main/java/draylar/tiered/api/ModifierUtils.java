@@ -2,24 +2,25 @@ package draylar.tiered.api;
 
 import net.levelz.access.PlayerStatsManagerAccess;
 import net.levelz.stats.Skill;
-import net.libz.util.SortList;
+import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
-import net.minecraft.registry.Registries;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.math.random.Random;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
+import java.util.Objects;
 
 import org.jetbrains.annotations.Nullable;
 
 import elocindev.tierify.Tierify;
 import elocindev.tierify.compat.ItemBordersCompat;
+import elocindev.tierify.data.ItemAttributeIndex;
+import elocindev.tierify.util.TieredRandom;
 
 public class ModifierUtils {
 
@@ -33,128 +34,82 @@ public class ModifierUtils {
      */
     @Nullable
     public static Identifier getRandomAttributeIDFor(@Nullable PlayerEntity playerEntity, Item item, boolean reforge) {
-        List<Identifier> potentialAttributes = new ArrayList<>();
-        List<Integer> attributeWeights = new ArrayList<>();
-        // collect all valid attributes for the given item and their weights
-
-        Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().forEach((id, attribute) -> {
-            if (attribute.isValid(Registries.ITEM.getId(item)) && (attribute.getWeight() > 0 || reforge)) {
-                potentialAttributes.add(new Identifier(attribute.getID()));
-                attributeWeights.add(reforge ? attribute.getWeight() + 1 : attribute.getWeight());
-            }
-        });
-        if (potentialAttributes.size() <= 0) {
+        return getRandomAttributeIDFor(playerEntity, item, reforge, TieredRandom.get());
+    }
+
+    /**
+     * Returns the ID of a random attribute that is valid for the given {@link Item}, drawn with the given {@link Random}.
+     *
+     * @param item      {@link Item} to generate a random attribute for
+     * @param random    random to roll with, see {@link TieredRandom}
+     * @return          id of random attribute for item in {@link Identifier} form, or null if there are no valid options
+     */
+    @Nullable
+    public static Identifier getRandomAttributeIDFor(@Nullable PlayerEntity playerEntity, Item item, boolean reforge, Random random) {
+        ItemAttributeIndex.Candidates candidates = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributeIndex().get(item);
+        // reforge flattening is already baked into the reforge bucket
+        ItemAttributeIndex.Bucket bucket = reforge ? candidates.getReforgeBucket() : candidates.getRollBucket();
+        if (bucket.isEmpty()) {
             return null;
         }
 
-        if (reforge && attributeWeights.size() > 2) {
-            SortList.concurrentSort(attributeWeights, attributeWeights, potentialAttributes);
-            int maxWeight = attributeWeights.get(attributeWeights.size() - 1);
-            for (int i = 0; i < attributeWeights.size(); i++) {
-                if (attributeWeights.get(i) > maxWeight / 2) {
-                    attributeWeights.set(i, (int) (attributeWeights.get(i) * Tierify.CONFIG.reforgeModifier));
-                }
-            }
+        int index = bucket.sample(getHighWeightFactor(playerEntity), random);
+        return index < 0 ? null : candidates.getId(index);
+    }
+
+    /**
+     * Returns the factor LevelZ smithing and luck apply to the biggest weights of a roll.
+     */
+    private static float getHighWeightFactor(@Nullable PlayerEntity playerEntity) {
+        if (playerEntity == null) {
+            return 1.0f;
         }
+        float factor = 1.0f;
         // LevelZ
-        if (Tierify.isLevelZLoaded && playerEntity != null) {
-            int newMaxWeight = Collections.max(attributeWeights);
-            for (int i = 0; i < attributeWeights.size(); i++) {
-                if (attributeWeights.get(i) > newMaxWeight / 3) {
-                    attributeWeights.set(i, (int) (attributeWeights.get(i)
-                            * (1.0f - Tierify.CONFIG.levelzReforgeModifier * ((PlayerStatsManagerAccess) playerEntity).getPlayerStatsManager().getSkillLevel(Skill.SMITHING))));
-                }
-            }
+        if (Tierify.isLevelZLoaded) {
+            factor *= 1.0f - Tierify.CONFIG.levelzReforgeModifier * ((PlayerStatsManagerAccess) playerEntity).getPlayerStatsManager().getSkillLevel(Skill.SMITHING);
         }
         // Luck
-        if (playerEntity != null) {
-            int luckMaxWeight = Collections.max(attributeWeights);
-            for (int i = 0; i < attributeWeights.size(); i++) {
-                if (attributeWeights.get(i) > luckMaxWeight / 3) {
-                    attributeWeights.set(i, (int) (attributeWeights.get(i) * (1.0f - Tierify.CONFIG.luckReforgeModifier * playerEntity.getLuck())));
-                }
-            }
-        }
-
-        if (potentialAttributes.size() > 0) {
-            int totalWeight = 0;
-            for (Integer weight : attributeWeights) {
-                totalWeight += weight.intValue();
-            }
-            int randomChoice = new Random().nextInt(totalWeight);
-            SortList.concurrentSort(attributeWeights, attributeWeights, potentialAttributes);
-
-            for (int i = 0; i < attributeWeights.size(); i++) {
-                if (randomChoice < attributeWeights.get(i)) {
-                    return potentialAttributes.get(i);
-                }
-                randomChoice -= attributeWeights.get(i);
-            }
-            // If random choice didn't work
-            return potentialAttributes.get(new Random().nextInt(potentialAttributes.size()));
-        } else
-            return null;
+        factor *= 1.0f - Tierify.CONFIG.luckReforgeModifier * playerEntity.getLuck();
+        return factor;
     }
 
     /**
-     * Returns a list of all attribute IDs that contain the specified quality in their identifier.
+     * Returns a list of all attribute IDs of the specified quality that are valid for the given item.
      *
-     * @param quality       The quality substring to look for in the attribute identifiers (e.g., "mythic").
-     * @return              List of attribute IDs that contain the specified quality substring.
+     * @param quality       The quality to look for, case insensitive (e.g., "mythic").
+     * @return              List of attribute IDs of the specified quality.
      */
     public static List<Identifier> getAttributeIDsForQuality(String quality, Item item) {
         List<Identifier> matchingAttributes = new ArrayList<>();
-        
-        // iterate over all attributes and add matching ones to the list
-        Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().forEach((id, attribute) -> {
-            if (attribute.isValid(Registries.ITEM.getId(item)) && id.toString().contains(quality.toLowerCase())) {
-                matchingAttributes.add(id);
-            }
-        });
-        
+
+        ItemAttributeIndex index = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributeIndex();
+        ItemAttributeIndex.Candidates candidates = index.get(item);
+        for (int member : candidates.getQualityMembers(index.getQualityOrdinal(quality))) {
+            matchingAttributes.add(candidates.getId(member));
+        }
+
         return matchingAttributes;
     }
 
-/**
-     * Returns a random attribute ID from the attributes that contain any of the specified quality substrings in their identifier,
-     * considering the weights of the attributes.
+    /**
+     * Returns a random attribute ID from the attributes of any of the specified qualities, considering the weights of the attributes.
      *
-     * @param qualities A list of quality substrings to look for in the attribute identifiers (e.g., "mythic", "legendary").
+     * @param qualities A list of qualities to pick from, case insensitive (e.g., "mythic", "legendary").
      * @param item      The item for which the attribute is being searched.
      * 
-     * @return A random attribute ID that contains one of the specified quality substrings, considering attribute weights, or null if none are found.
+     * @return A random attribute ID of one of the specified qualities, considering attribute weights, or null if none are found.
      */
     public static Identifier getRandomAttributeForQuality(List<String> qualities, Item item, boolean reforge) {
-        List<Identifier> matchingAttributes = new ArrayList<>();
-        List<Integer> matchingAttributeWeights = new ArrayList<>();
-
-        // Collect all matching attributes for the given qualities and their weights
-        Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().forEach((id, attribute) -> {
-            if (attribute.isValid(Registries.ITEM.getId(item)) && qualities.stream().anyMatch(quality -> id.toString().contains(quality.toLowerCase())) && (attribute.getWeight() > 0 || reforge)) {
-                matchingAttributes.add(id);
-                matchingAttributeWeights.add(reforge ? attribute.getWeight() + 1 : attribute.getWeight());
-            }
-        });
-
-        // Return null if no matching attributes are found
-        if (matchingAttributes.isEmpty()) {
-            return null;
-        }
+        return getRandomAttributeForQuality(qualities, item, reforge, TieredRandom.get());
+    }
 
-        // Calculate the total weight
-        int totalWeight = matchingAttributeWeights.stream().mapToInt(Integer::intValue).sum();
-        int randomIndex = new Random().nextInt(totalWeight);
-        
-        // Choose a random attribute based on weight
-        for (int i = 0; i < matchingAttributes.size(); i++) {
-            randomIndex -= matchingAttributeWeights.get(i);
-            if (randomIndex < 0) {
-                return matchingAttributes.get(i);
-            }
-        }
+    public static Identifier getRandomAttributeForQuality(List<String> qualities, Item item, boolean reforge, Random random) {
+        ItemAttributeIndex index = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributeIndex();
+        ItemAttributeIndex.Candidates candidates = index.get(item);
 
-        // Fallback, should not be reached due to the weight calculation
-        return null;
+        int candidate = candidates.sampleQualities(index.getQualityOrdinals(qualities), reforge, random);
+        return candidate < 0 ? null : candidates.getId(candidate);
     }
 
     public static void setItemStackAttribute(Identifier potentialAttributeID, ItemStack stack) {
@@ -165,10 +120,11 @@ public class ModifierUtils {
             stack.getOrCreateSubNbt("itemborders_colors").putString("top", ItemBordersCompat.getColorForIdentifier(potentialAttributeID));
             stack.getOrCreateSubNbt("itemborders_colors").putString("bottom", ItemBordersCompat.getColorForIdentifier(potentialAttributeID));
 
-            HashMap<String, Object> nbtMap = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(new Identifier(potentialAttributeID.toString())).getNbtValues();
+            PotentialAttribute potentialAttribute = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(potentialAttributeID);
+            HashMap<String, Object> nbtMap = potentialAttribute.getNbtValues();
 
             // add durability nbt
-            List<AttributeTemplate> attributeList = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(new Identifier(potentialAttributeID.toString())).getAttributes();
+            List<AttributeTemplate> attributeList = potentialAttribute.getAttributes();
             for (int i = 0; i < attributeList.size(); i++) {
                 if (attributeList.get(i).getAttributeTypeID().equals("tiered:generic.durable")) {
                     if (nbtMap == null) {
@@ -210,6 +166,7 @@ public class ModifierUtils {
 
 
     public static void setItemStackAttribute(@Nullable PlayerEntity playerEntity, ItemStack stack, boolean reforge, ItemStack reforgeMaterial) {
+        Random random = playerEntity != null ? playerEntity.getRandom() : TieredRandom.get();
         if (reforge && reforgeMaterial != null) {
             List<String> qualities = null;
 
@@ -222,7 +179,7 @@ public class ModifierUtils {
             }
 
             if (qualities != null) {
-                Identifier possibleAttribute = getRandomAttributeForQuality(qualities, stack.getItem(), reforge);
+                Identifier possibleAttribute = getRandomAttributeForQuality(qualities, stack.getItem(), reforge, random);
                 if (possibleAttribute != null) {
                     setItemStackAttribute(possibleAttribute, stack);
                     return;
@@ -230,27 +187,75 @@ public class ModifierUtils {
             }
         }
 
-        setItemStackAttribute(playerEntity, stack, reforge);
+        setItemStackAttribute(playerEntity, stack, reforge, random);
     }
 
     public static void setItemStackAttribute(@Nullable PlayerEntity playerEntity, ItemStack stack, boolean reforge) {
+        setItemStackAttribute(playerEntity, stack, reforge, playerEntity != null ? playerEntity.getRandom() : TieredRandom.get());
+    }
+
+    public static void setItemStackAttribute(@Nullable PlayerEntity playerEntity, ItemStack stack, boolean reforge, Random random) {
         if (stack.getSubNbt(Tierify.NBT_SUBTAG_KEY) == null) {
-            setItemStackAttribute(ModifierUtils.getRandomAttributeIDFor(playerEntity, stack.getItem(), reforge), stack);   
+            setItemStackAttribute(ModifierUtils.getRandomAttributeIDFor(playerEntity, stack.getItem(), reforge, random), stack);
         }
     }
 
+    /**
+     * Rolls a tier for a stack generated in the world (loot, mob equipment, item frames, armor stands). With {@code deferredRolls}
+     * the stack only gets a pending marker instead, and the roll happens once a player has it in their inventory.
+     */
+    public static void setGeneratedItemStackAttribute(ItemStack stack, Random random) {
+        if (Tierify.CONFIG.deferredRolls) {
+            markPendingAttribute(stack);
+        } else {
+            setItemStackAttribute(null, stack, false, random);
+        }
+    }
+
+    /**
+     * Marks a stack for a deferred roll, unless it already has a tier or no tier can be rolled for its item.
+     */
+    public static void markPendingAttribute(ItemStack stack) {
+        if (stack.isEmpty() || stack.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
+            return;
+        }
+        if (Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributeIndex().get(stack.getItem()).getRollBucket().isEmpty()) {
+            return;
+        }
+        stack.getOrCreateNbt().putBoolean(Tierify.NBT_PENDING_KEY, true);
+    }
+
+    public static boolean hasPendingAttribute(ItemStack stack) {
+        return stack.hasNbt() && stack.getNbt().contains(Tierify.NBT_PENDING_KEY);
+    }
+
+    /**
+     * Performs the deferred roll of a marked stack with the context of the player that got it.
+     */
+    public static void rollPendingAttribute(@Nullable PlayerEntity playerEntity, ItemStack stack) {
+        if (!hasPendingAttribute(stack)) {
+            return;
+        }
+        stack.getNbt().remove(Tierify.NBT_PENDING_KEY);
+        if (stack.getNbt().isEmpty()) {
+            // keeps it stackable with unmarked stacks if nothing gets rolled
+            stack.setNbt(null);
+        }
+        setItemStackAttribute(playerEntity, stack, false);
+    }
+
     public static void removeItemStackAttribute(ItemStack itemStack) {
         if (itemStack.hasNbt() && itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
 
-            Identifier tier = new Identifier(itemStack.getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).getString(Tierify.NBT_SUBTAG_DATA_KEY));
-            if (Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier) != null) {
-                HashMap<String, Object> nbtMap = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier).getNbtValues();
+            PotentialAttribute potentialAttribute = getAttribute(itemStack);
+            if (potentialAttribute != null) {
+                HashMap<String, Object> nbtMap = potentialAttribute.getNbtValues();
                 List<String> nbtKeys = new ArrayList<String>();
                 if (nbtMap != null) {
                     nbtKeys.addAll(nbtMap.keySet().stream().toList());
                 }
 
-                List<AttributeTemplate> attributeList = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier).getAttributes();
+                List<AttributeTemplate> attributeList = potentialAttribute.getAttributes();
                 for (int i = 0; i < attributeList.size(); i++) {
                     if (attributeList.get(i).getAttributeTypeID().equals("tiered:generic.durable")) {
                         nbtKeys.add("durable");
@@ -270,10 +275,68 @@ public class ModifierUtils {
         }
     }
 
+    /**
+     * Returns true if the tier of the given {@link ItemStack} adds modifiers in the given slot.
+     * Stacks with an {@code AttributeModifiers} override never get tier modifiers.
+     */
+    public static boolean hasTierModifiers(ItemStack itemStack, EquipmentSlot slot) {
+        PotentialAttribute potentialAttribute = getAttribute(itemStack);
+        if (potentialAttribute == null || itemStack.getNbt().contains("AttributeModifiers", 9)) {
+            return false;
+        }
+        boolean preferredSlot = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributeIndex().isPreferredEquipmentSlot(itemStack, slot);
+        return !potentialAttribute.getRealizedModifiers(slot, preferredSlot).isEmpty();
+    }
+
+    /**
+     * Compares the parts of two stacks that decide their tier modifiers: the item, the tier compound, an attribute modifier override and
+     * the nbt values the tier writes. Damage and any other nbt are ignored, and nothing is copied.
+     *
+     * @return true if both stacks end up with the same tier modifiers
+     */
+    public static boolean hasSameTier(ItemStack itemStack, ItemStack other) {
+        if (itemStack.isEmpty() || other.isEmpty()) {
+            return itemStack.isEmpty() && other.isEmpty();
+        }
+        if (!itemStack.isOf(other.getItem())) {
+            return false;
+        }
+        NbtCompound nbt = itemStack.getNbt();
+        NbtCompound otherNbt = other.getNbt();
+        if (nbt == null || otherNbt == null) {
+            return nbt == otherNbt;
+        }
+        if (!Objects.equals(nbt.get(Tierify.NBT_SUBTAG_KEY), otherNbt.get(Tierify.NBT_SUBTAG_KEY)) || !Objects.equals(nbt.get("AttributeModifiers"), otherNbt.get("AttributeModifiers"))) {
+            return false;
+        }
+        PotentialAttribute potentialAttribute = getAttribute(itemStack);
+        if (potentialAttribute != null && potentialAttribute.getNbtValues() != null) {
+            for (String key : potentialAttribute.getNbtValues().keySet()) {
+                if (!Objects.equals(nbt.get(key), otherNbt.get(key))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     @Nullable
     public static Identifier getAttributeID(ItemStack itemStack) {
-        if (itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
-            return new Identifier(itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY).getString(Tierify.NBT_SUBTAG_DATA_KEY));
+        NbtCompound tiered = itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY);
+        if (tiered != null) {
+            return Tierify.ATTRIBUTE_DATA_LOADER.getTierId(tiered.getString(Tierify.NBT_SUBTAG_DATA_KEY));
+        }
+        return null;
+    }
+
+    /**
+     * Returns the {@link PotentialAttribute} stored on the given {@link ItemStack}, or null if it has none or it is not loaded.
+     */
+    @Nullable
+    public static PotentialAttribute getAttribute(ItemStack itemStack) {
+        NbtCompound tiered = itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY);
+        if (tiered != null) {
+            return Tierify.ATTRIBUTE_DATA_LOADER.getAttributeForTier(tiered.getString(Tierify.NBT_SUBTAG_DATA_KEY));
         }
         return null;
     }
@@ -1,11 +1,19 @@
 package draylar.tiered.api;
 
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttribute;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.item.Item;
 import net.minecraft.text.Style;
 import net.minecraft.util.Identifier;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.Multimap;
+
 import org.jetbrains.annotations.Nullable;
 
 public class PotentialAttribute {
@@ -16,14 +24,26 @@ public class PotentialAttribute {
     private final Style style;
     private final List<AttributeTemplate> attributes;
     private final HashMap<String, Object> nbtValues;
+    // optional, inferred from the id if missing
+    @Nullable
+    private final String quality;
+
+    // realized modifiers per slot ordinal, built on first use; Gson skips transient fields
+    private transient volatile RealizedModifiers realizedModifiers;
 
     public PotentialAttribute(String id, List<ItemVerifier> verifiers, int weight, Style style, List<AttributeTemplate> attributes, HashMap<String, Object> nbtValues) {
+        this(id, verifiers, weight, style, attributes, nbtValues, null);
+    }
+
+    public PotentialAttribute(String id, List<ItemVerifier> verifiers, int weight, Style style, List<AttributeTemplate> attributes, HashMap<String, Object> nbtValues,
+            @Nullable String quality) {
         this.id = id;
         this.verifiers = verifiers;
         this.style = style;
         this.attributes = attributes;
         this.weight = weight;
         this.nbtValues = nbtValues;
+        this.quality = quality;
     }
 
     public String getID() {
@@ -47,6 +67,15 @@ public class PotentialAttribute {
         return false;
     }
 
+    public boolean isValid(Item item) {
+        for (ItemVerifier verifier : verifiers) {
+            if (verifier.isValid(item))
+                return true;
+        }
+
+        return false;
+    }
+
     public Style getStyle() {
         return style;
     }
@@ -60,4 +89,71 @@ public class PotentialAttribute {
         return nbtValues;
     }
 
+    /**
+     * Returns the quality set in the data file, or null if it is inferred from the id.
+     */
+    @Nullable
+    public String getQuality() {
+        return quality;
+    }
+
+    /**
+     * Returns the modifiers this attribute applies to an item in the given slot.
+     * <p>
+     * The modifiers are realized once per attribute instance, so repeated lookups do not allocate.
+     *
+     * @param slot          slot the item is in
+     * @param preferredSlot whether the slot is the item's preferred slot, which enables optional equipment slots
+     * @return an immutable multimap of the realized modifiers
+     */
+    public Multimap<EntityAttribute, EntityAttributeModifier> getRealizedModifiers(EquipmentSlot slot, boolean preferredSlot) {
+        RealizedModifiers realized = realizedModifiers;
+        if (realized == null) {
+            realized = new RealizedModifiers(attributes);
+            realizedModifiers = realized;
+        }
+        return preferredSlot ? realized.preferred[slot.ordinal()] : realized.required[slot.ordinal()];
+    }
+
+    private static class RealizedModifiers {
+        private final ImmutableMultimap<EntityAttribute, EntityAttributeModifier>[] required;
+        private final ImmutableMultimap<EntityAttribute, EntityAttributeModifier>[] preferred;
+
+        @SuppressWarnings("unchecked")
+        private RealizedModifiers(List<AttributeTemplate> templates) {
+            EquipmentSlot[] slots = EquipmentSlot.values();
+            this.required = new ImmutableMultimap[slots.length];
+            this.preferred = new ImmutableMultimap[slots.length];
+
+            for (EquipmentSlot slot : slots) {
+                ImmutableMultimap.Builder<EntityAttribute, EntityAttributeModifier> requiredBuilder = ImmutableMultimap.builder();
+                ImmutableMultimap.Builder<EntityAttribute, EntityAttributeModifier> preferredBuilder = ImmutableMultimap.builder();
+
+                for (AttributeTemplate template : templates) {
+                    boolean isRequired = template.getRequiredEquipmentSlots() != null && Arrays.asList(template.getRequiredEquipmentSlots()).contains(slot);
+                    // optional equipment slots are valid ONLY IF the equipment slot is valid for the thing
+                    boolean isOptional = template.getOptionalEquipmentSlots() != null && Arrays.asList(template.getOptionalEquipmentSlots()).contains(slot);
+                    if (!isRequired && !isOptional) {
+                        continue;
+                    }
+
+                    EntityAttribute key = template.getAttribute();
+                    if (key == null) {
+                        template.warnUnknownAttribute();
+                        continue;
+                    }
+                    EntityAttributeModifier modifier = template.createModifier(slot);
+                    if (isRequired) {
+                        requiredBuilder.put(key, modifier);
+                        preferredBuilder.put(key, modifier);
+                    }
+                    if (isOptional) {
+                        preferredBuilder.put(key, modifier);
+                    }
+                }
+                this.required[slot.ordinal()] = requiredBuilder.build();
+                this.preferred[slot.ordinal()] = preferredBuilder.build();
+            }
+        }
+    }
 }
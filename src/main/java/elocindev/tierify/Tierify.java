@@ -7,20 +7,24 @@ import me.shedaniel.autoconfig.serializer.JanksonConfigSerializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.client.item.v1.ItemTooltipCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.CommonLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
 import net.fabricmc.fabric.api.item.v1.ModifyItemAttributeModifiersCallback;
 import net.fabricmc.fabric.api.itemgroup.v1.ItemGroupEvents;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayConnectionEvents;
+import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
 import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttribute;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
 import net.minecraft.entity.player.PlayerInventory;
 import net.minecraft.item.Equipment;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Items;
 import net.minecraft.item.RangedWeaponItem;
 import net.minecraft.item.ShieldItem;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.network.PacketByteBuf;
 import net.minecraft.registry.Registries;
 import net.minecraft.registry.Registry;
@@ -30,11 +34,14 @@ import net.minecraft.resource.ResourceType;
 import net.minecraft.resource.featuretoggle.FeatureFlags;
 import net.minecraft.screen.ScreenHandlerContext;
 import net.minecraft.screen.ScreenHandlerType;
+import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import com.google.common.collect.Multimap;
+
 import draylar.tiered.api.*;
 import elocindev.necronomicon.api.config.v1.NecConfigAPI;
 import elocindev.tierify.command.CommandInit;
@@ -43,9 +50,14 @@ import elocindev.tierify.config.CommonConfig;
 import elocindev.tierify.Tierify;
 import elocindev.tierify.data.AttributeDataLoader;
 import elocindev.tierify.data.ReforgeDataLoader;
+import elocindev.tierify.network.AttributeSyncCodec;
+import elocindev.tierify.network.ReforgeSyncCodec;
 import elocindev.tierify.network.TieredServerPacket;
 import elocindev.tierify.registry.ItemRegistry;
 import elocindev.tierify.screen.ReforgeScreenHandler;
+import elocindev.tierify.util.InventoryRevalidator;
+import elocindev.tierify.util.TagParsingHelper;
+import elocindev.tierify.util.TieredMetrics;
 
 import java.util.*;
 
@@ -92,10 +104,12 @@ public class Tierify implements ModInitializer {
     public static final Logger LOGGER = LogManager.getLogger();
 
     public static final Identifier ATTRIBUTE_SYNC_PACKET = new Identifier("attribute_sync");
+    public static final Identifier ATTRIBUTE_SYNC_REQUEST_PACKET = new Identifier("attribute_sync_request");
     public static final Identifier REFORGE_ITEM_SYNC_PACKET = new Identifier("reforge_item_sync");
     public static final String NBT_SUBTAG_KEY = "Tiered";
     public static final String NBT_SUBTAG_DATA_KEY = "Tier";
     public static final String NBT_SUBTAG_TEMPLATE_DATA_KEY = "Template";
+    public static final String NBT_PENDING_KEY = "TieredPending";
 
     @Override
     public void onInitialize() {
@@ -105,6 +119,7 @@ public class Tierify implements ModInitializer {
 
         CONFIG = CommonConfig.INSTANCE;
         CLIENT_CONFIG = AutoConfig.getConfigHolder(ClientConfig.class).getConfig();
+        TieredMetrics.setEnabled(CONFIG.collectMetrics);
 
         TieredItemTags.init();
         ItemRegistry.init();
@@ -133,47 +148,71 @@ public class Tierify implements ModInitializer {
             content.addAfter(Items.AMETHYST_SHARD, ItemRegistry.RAW_GALENA);
         });
 
+        // verifiers and reforge definitions resolve against item tags, so their item indexes can only be built once tags are bound
+        CommonLifecycleEvents.TAGS_LOADED.register((registries, client) -> {
+            ItemVerifier.invalidateCache();
+            TagParsingHelper.invalidateCache();
+            // client side tags are the ones sent by the server the client is connected to
+            if (client) {
+                ATTRIBUTE_DATA_LOADER.rebuildClientItemAttributeIndex();
+            } else {
+                ATTRIBUTE_DATA_LOADER.rebuildItemAttributeIndex();
+            }
+            REFORGE_DATA_LOADER.rebuildReforgeIndex();
+        });
         ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, serverResourceManager, success) -> {
             if (success) {
-                for (int i = 0; i < server.getPlayerManager().getPlayerList().size(); i++)
-                    updateItemStackNbt(server.getPlayerManager().getPlayerList().get(i).getInventory());
+                // inventories are revalidated over the next ticks instead of all at once
+                InventoryRevalidator.schedule(server, ATTRIBUTE_DATA_LOADER.getChangedTierIds());
+                // encode once and offer the new hash to everyone online
+                AttributeSyncCodec.Payload payload = AttributeSyncCodec.getPayload(ATTRIBUTE_DATA_LOADER.getServerSnapshot().getItemAttributes());
+                for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+                    // the host already reads the reloaded server snapshot
+                    if (!server.isHost(player.getGameProfile())) {
+                        ServerPlayNetworking.send(player, ATTRIBUTE_SYNC_PACKET, payload.createPacket(false));
+                    }
+                }
                 LOGGER.info("Finished reload on {}", Thread.currentThread());
             } else
                 LOGGER.error("Failed to reload on {}", Thread.currentThread());
         });
+        ServerTickEvents.END_SERVER_TICK.register(InventoryRevalidator::tick);
+        ServerTickEvents.END_SERVER_TICK.register(TieredServerPacket::flushHealthSync);
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> {
+            TieredMetrics.setServerThread(server.getThread());
+            // the client of this process reads the integrated server's attributes, also from threads that are neither render nor server thread
+            if (!server.isDedicated()) {
+                ATTRIBUTE_DATA_LOADER.setClientSharesServer(true);
+            }
+        });
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            ATTRIBUTE_DATA_LOADER.onServerStopped();
+            TieredMetrics.setServerThread(null);
+            InventoryRevalidator.clear();
+            TieredServerPacket.clearHealthSync();
+        });
         ServerPlayConnectionEvents.INIT.register((handler, server) -> {
             updateItemStackNbt(handler.player.getInventory());
         });
-        ModifyItemAttributeModifiersCallback.EVENT.register((itemStack, slot, modifiers) -> {
-            if (itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
-                Identifier tier = new Identifier(itemStack.getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).getString(Tierify.NBT_SUBTAG_DATA_KEY));
-
-                if (!itemStack.hasNbt() || !itemStack.getNbt().contains("AttributeModifiers", 9)) {
-                    PotentialAttribute potentialAttribute = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier);
-                    if (potentialAttribute != null) {
-                        potentialAttribute.getAttributes().forEach(template -> {
-                            // get required equipment slots
-                            if (template.getRequiredEquipmentSlots() != null) {
-                                List<EquipmentSlot> requiredEquipmentSlots = new ArrayList<>(Arrays.asList(template.getRequiredEquipmentSlots()));
-
-                                if (requiredEquipmentSlots.contains(slot))
-                                    template.realize(modifiers, slot);
-                            }
-
-                            // get optional equipment slots
-                            if (template.getOptionalEquipmentSlots() != null) {
-                                List<EquipmentSlot> optionalEquipmentSlots = new ArrayList<>(Arrays.asList(template.getOptionalEquipmentSlots()));
+        ModifyItemAttributeModifiersCallback.EVENT.register(Tierify::addTierModifiers);
+    }
 
-                                // optional equipment slots are valid ONLY IF the equipment slot is valid for the thing
-                                if (optionalEquipmentSlots.contains(slot) && Tierify.isPreferredEquipmentSlot(itemStack, slot)) {
-                                    template.realize(modifiers, slot);
-                                }
-                            }
-                        });
-                    }
+    /**
+     * Adds the modifiers of the stack's tier for the given slot, unless the stack overrides its attribute modifiers.
+     * Registered as {@link ModifyItemAttributeModifiersCallback}.
+     */
+    public static void addTierModifiers(ItemStack itemStack, EquipmentSlot slot, Multimap<EntityAttribute, EntityAttributeModifier> modifiers) {
+        if (itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
+            if (!itemStack.hasNbt() || !itemStack.getNbt().contains("AttributeModifiers", 9)) {
+                long start = TieredMetrics.startOnServerThread();
+                PotentialAttribute potentialAttribute = ModifierUtils.getAttribute(itemStack);
+                if (potentialAttribute != null) {
+                    boolean preferredSlot = ATTRIBUTE_DATA_LOADER.getItemAttributeIndex().isPreferredEquipmentSlot(itemStack, slot);
+                    modifiers.putAll(potentialAttribute.getRealizedModifiers(slot, preferredSlot));
                 }
+                TieredMetrics.ATTRIBUTE_MODIFIERS.stop(start);
             }
-        });
+        }
     }
 
     /**
@@ -195,11 +234,8 @@ public class Tierify implements ModInitializer {
         ItemTooltipCallback.EVENT.register((stack, tooltipContext, lines) -> {
             // has tier
             if (stack.getSubNbt(NBT_SUBTAG_KEY) != null) {
-                // get tier
-                Identifier tier = new Identifier(stack.getOrCreateSubNbt(NBT_SUBTAG_KEY).getString(Tierify.NBT_SUBTAG_DATA_KEY));
-
                 // attempt to display attribute if it is valid
-                PotentialAttribute potentialAttribute = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier);
+                PotentialAttribute potentialAttribute = ModifierUtils.getAttribute(stack);
 
                 if (potentialAttribute != null)
                     lines.add(1, Text.translatable(potentialAttribute.getID() + ".label").setStyle(potentialAttribute.getStyle()));
@@ -220,112 +256,34 @@ public class Tierify implements ModInitializer {
 
     public static void registerAttributeSyncer() {
         ServerPlayConnectionEvents.JOIN.register((network, packetSender, minecraftServer) -> {
-            PacketByteBuf packet = new PacketByteBuf(Unpooled.buffer());
-
-            // serialize each attribute file as a string to the packet
-            packet.writeInt(ATTRIBUTE_DATA_LOADER.getItemAttributes().size());
-
-            // write each value
-            ATTRIBUTE_DATA_LOADER.getItemAttributes().forEach((id, attribute) -> {
-                packet.writeString(id.toString());
-                packet.writeString(AttributeDataLoader.GSON.toJson(attribute));
-            });
-
-            // send packet with attributes to client
-            packetSender.sendPacket(ATTRIBUTE_SYNC_PACKET, packet);
+            if (minecraftServer.isHost(network.player.getGameProfile())) {
+                // the host of an integrated server runs in this process, so it reads the server snapshot without a round trip
+                return;
+            }
+            // only offer the hash, clients request the attributes if their cached copy differs
+            packetSender.sendPacket(ATTRIBUTE_SYNC_PACKET, AttributeSyncCodec.getPayload(ATTRIBUTE_DATA_LOADER.getServerSnapshot().getItemAttributes()).createPacket(false));
+        });
+        ServerPlayNetworking.registerGlobalReceiver(ATTRIBUTE_SYNC_REQUEST_PACKET, (server, player, handler, buffer, packetSender) -> {
+            byte[] clientHash = buffer.readByteArray();
+            AttributeSyncCodec.Payload payload = AttributeSyncCodec.getPayload(ATTRIBUTE_DATA_LOADER.getServerSnapshot().getItemAttributes());
+            if (!Arrays.equals(clientHash, payload.getHash())) {
+                packetSender.sendPacket(ATTRIBUTE_SYNC_PACKET, payload.createPacket(true));
+            }
         });
     }
 
     public static void registerReforgeItemSyncer() {
         ServerPlayConnectionEvents.JOIN.register((network, packetSender, minecraftServer) -> {
-            PacketByteBuf packet = new PacketByteBuf(Unpooled.buffer());
-            REFORGE_DATA_LOADER.getReforgeIdentifiers().forEach(id -> {
-
-                List<Integer> list = new ArrayList<Integer>();
-                REFORGE_DATA_LOADER.getReforgeBaseItems(Registries.ITEM.get(id)).forEach(item -> {
-                    list.add(Registries.ITEM.getRawId(item));
-                });
-                packet.writeInt(list.size());
-                packet.writeIdentifier(id);
-                list.forEach(rawId -> {
-                    packet.writeInt(rawId);
-                });
-            });
-            packetSender.sendPacket(REFORGE_ITEM_SYNC_PACKET, packet);
+            for (PacketByteBuf packet : ReforgeSyncCodec.getPackets(REFORGE_DATA_LOADER.getReforgeDefinitions())) {
+                packetSender.sendPacket(REFORGE_ITEM_SYNC_PACKET, packet);
+            }
         });
     }
 
     public static void updateItemStackNbt(PlayerInventory playerInventory) {
         for (int u = 0; u < playerInventory.size(); u++) {
-            ItemStack itemStack = playerInventory.getStack(u);
-            if (!itemStack.isEmpty() && itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
-
-                // Check if attribute exists
-                List<String> attributeIds = new ArrayList<>();
-                Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().forEach((id, attribute) -> {
-                    if (attribute.isValid(Registries.ITEM.getId(itemStack.getItem()))) {
-                        attributeIds.add(attribute.getID());
-                    }
-
-                });
-                Identifier attributeID = null;
-                for (int i = 0; i < attributeIds.size(); i++) {
-                    if (itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY).asString().contains(attributeIds.get(i))) {
-                        attributeID = new Identifier(attributeIds.get(i));
-                        break;
-                    } else if (i == attributeIds.size() - 1) {
-                        ModifierUtils.removeItemStackAttribute(itemStack);
-                        attributeID = ModifierUtils.getRandomAttributeIDFor(null, itemStack.getItem(), false);
-                    }
-                }
-
-                // found an ID
-                if (attributeID != null) {
-
-                    HashMap<String, Object> nbtMap = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(new Identifier(attributeID.toString())).getNbtValues();
-                    // update durability nbt
-
-                    List<AttributeTemplate> attributeList = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(new Identifier(attributeID.toString())).getAttributes();
-                    for (int i = 0; i < attributeList.size(); i++) {
-                        if (attributeList.get(i).getAttributeTypeID().equals("tiered:generic.durable")) {
-                            if (nbtMap == null) {
-                                nbtMap = new HashMap<String, Object>();
-                            }
-                            nbtMap.put("durable", (double) Math.round(attributeList.get(i).getEntityAttributeModifier().getValue() * 100.0) / 100.0);
-                            break;
-                        }
-                    }
-
-                    // add nbtMap
-                    if (nbtMap != null) {
-                        NbtCompound nbtCompound = itemStack.getNbt();
-                        for (HashMap.Entry<String, Object> entry : nbtMap.entrySet()) {
-                            String key = entry.getKey();
-                            Object value = entry.getValue();
-
-                            // json list will get read as ArrayList class
-                            // json map will get read as linkedtreemap
-                            // json integer is read by gson -> always double
-                            if (value instanceof String) {
-                                nbtCompound.putString(key, (String) value);
-                            } else if (value instanceof Boolean) {
-                                nbtCompound.putBoolean(key, (boolean) value);
-                            } else if (value instanceof Double) {
-                                if ((double) Math.abs((double) value) % 1.0 < 0.0001D) {
-                                    nbtCompound.putInt(key, (int) Math.round((double) value));
-                                } else {
-                                    nbtCompound.putDouble(key, Math.round((double) value * 100.0) / 100.0);
-                                }
-                            }
-                        }
-                        itemStack.setNbt(nbtCompound);
-                    }
-                    if (itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) == null) {
-                        itemStack.getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).putString(Tierify.NBT_SUBTAG_DATA_KEY, attributeID.toString());
-                    }
-                    playerInventory.setStack(u, itemStack);
-                }
-            }
+            // tiers may have changed any time the player was offline, so treat all of them as changed
+            InventoryRevalidator.revalidate(playerInventory.getStack(u), null);
         }
     }
 }
@@ -1,33 +1,43 @@
 package elocindev.tierify;
 
+import me.shedaniel.autoconfig.AutoConfig;
 import net.fabricmc.api.ClientModInitializer;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
+import net.fabricmc.fabric.api.client.item.v1.ItemTooltipCallback;
 import net.fabricmc.fabric.api.client.networking.v1.ClientPlayNetworking;
+import net.fabricmc.fabric.api.networking.v1.PacketByteBufs;
 import net.fabricmc.fabric.api.resource.ResourceManagerHelper;
+import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
 import net.libz.registry.TabRegistry;
+import net.minecraft.client.MinecraftClient;
 import net.minecraft.client.gui.screen.ingame.AnvilScreen;
 import net.minecraft.client.gui.screen.ingame.HandledScreens;
-import net.minecraft.item.Item;
-import net.minecraft.registry.Registries;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.resource.ResourceManager;
 import net.minecraft.resource.ResourceType;
 import net.minecraft.text.Text;
+import net.minecraft.util.ActionResult;
+import net.minecraft.util.Formatting;
 import net.minecraft.util.Identifier;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
-import draylar.tiered.api.BorderTemplate;
+import draylar.tiered.api.ModifierUtils;
 import draylar.tiered.api.PotentialAttribute;
-import elocindev.tierify.data.AttributeDataLoader;
+import elocindev.tierify.config.ClientConfig;
 import elocindev.tierify.data.TooltipBorderLoader;
+import elocindev.tierify.data.ReforgeDataLoader;
+import elocindev.tierify.network.AttributeSyncCodec;
+import elocindev.tierify.network.ReforgeSyncCodec;
 import elocindev.tierify.network.TieredClientPacket;
 import elocindev.tierify.screen.ReforgeScreenHandler;
 import elocindev.tierify.screen.client.ReforgeScreen;
 import elocindev.tierify.screen.client.widget.AnvilTab;
 import elocindev.tierify.screen.client.widget.ReforgeTab;
+import elocindev.tierify.util.TooltipCache;
 
 @Environment(EnvType.CLIENT)
 public class TierifyClient implements ClientModInitializer {
@@ -35,7 +45,9 @@ public class TierifyClient implements ClientModInitializer {
     // map for storing attributes before logging into a server
     public static final Map<Identifier, PotentialAttribute> CACHED_ATTRIBUTES = new HashMap<>();
 
-    public static final List<BorderTemplate> BORDER_TEMPLATES = new ArrayList<BorderTemplate>();
+    // last attributes received from a server and the hash they were sent with, reused if a server offers the same hash
+    private static Map<Identifier, PotentialAttribute> syncedAttributes = null;
+    private static byte[] syncedAttributesHash = null;
 
     private static final Identifier ANVIL_TAB_ICON = new Identifier("tiered:textures/gui/anvil_tab_icon.png");
     private static final Identifier REFORGE_TAB_ICON = new Identifier("tiered:textures/gui/reforge_tab_icon.png");
@@ -47,49 +59,67 @@ public class TierifyClient implements ClientModInitializer {
         HandledScreens.<ReforgeScreenHandler, ReforgeScreen>register(Tierify.REFORGE_SCREEN_HANDLER_TYPE, ReforgeScreen::new);
         TieredClientPacket.init();
         ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new TooltipBorderLoader());
+        registerTooltipCache();
+        registerPendingLabel();
         TabRegistry.registerOtherTab(new AnvilTab(Text.translatable("container.repair"), ANVIL_TAB_ICON, 0, AnvilScreen.class), AnvilScreen.class);
         TabRegistry.registerOtherTab(new ReforgeTab(Text.translatable("screen.tiered.reforging_screen"), REFORGE_TAB_ICON, 1, ReforgeScreen.class), AnvilScreen.class);
     }
 
+    private static void registerTooltipCache() {
+        // tooltips are stored by ItemStackTooltipCacheMixin once getTooltip returns
+        ResourceManagerHelper.get(ResourceType.CLIENT_RESOURCES).registerReloadListener(new SimpleSynchronousResourceReloadListener() {
+            @Override
+            public Identifier getFabricId() {
+                return Tierify.id("tooltip_cache");
+            }
+
+            @Override
+            public void reload(ResourceManager manager) {
+                TooltipCache.clear();
+            }
+        });
+        AutoConfig.getConfigHolder(ClientConfig.class).registerSaveListener((holder, config) -> {
+            MinecraftClient.getInstance().execute(TooltipCache::clear);
+            return ActionResult.PASS;
+        });
+    }
+
+    private static void registerPendingLabel() {
+        // stacks with a deferred roll have no tier yet, so nothing else marks them
+        ItemTooltipCallback.EVENT.register((stack, context, lines) -> {
+            if (ModifierUtils.hasPendingAttribute(stack)) {
+                lines.add(Math.min(1, lines.size()), Text.translatable("tiered.unidentified").formatted(Formatting.GRAY));
+            }
+        });
+    }
+
     public static void registerAttributeSyncHandler() {
         ClientPlayNetworking.registerGlobalReceiver(Tierify.ATTRIBUTE_SYNC_PACKET, (client, play, packet, packetSender) -> {
-            // save old attributes
-            CACHED_ATTRIBUTES.putAll(Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes());
-            Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().clear();
-
-            // for each id/attribute pair, load it
-            int size = packet.readInt();
-            for (int i = 0; i < size; i++) {
-                Identifier id = new Identifier(packet.readString());
-                PotentialAttribute pa = AttributeDataLoader.GSON.fromJson(packet.readString(), PotentialAttribute.class);
-                Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().put(id, pa);
+            byte[] hash = packet.readByteArray();
+            if (packet.readBoolean()) {
+                syncedAttributes = AttributeSyncCodec.decode(packet);
+                syncedAttributesHash = hash;
+            } else if (syncedAttributes == null || !Arrays.equals(hash, syncedAttributesHash)) {
+                // offer only, ask for the attributes since the cached copy is missing or outdated
+                PacketByteBuf request = PacketByteBufs.create();
+                request.writeByteArray(syncedAttributesHash == null ? new byte[0] : syncedAttributesHash);
+                packetSender.sendPacket(Tierify.ATTRIBUTE_SYNC_REQUEST_PACKET, request);
+                return;
             }
+
+            // save old attributes
+            CACHED_ATTRIBUTES.putAll(Tierify.ATTRIBUTE_DATA_LOADER.getClientSnapshot().getItemAttributes());
+            // only the client side is replaced, an integrated server keeps rolling from its own snapshot
+            Tierify.ATTRIBUTE_DATA_LOADER.setClientItemAttributes(syncedAttributes);
         });
     }
 
     public static void registerReforgeItemSyncHandler() {
         ClientPlayNetworking.registerGlobalReceiver(Tierify.REFORGE_ITEM_SYNC_PACKET, (client, play, packet, packetSender) -> {
-            List<Identifier> identifiers = new ArrayList<Identifier>();
-            List<List<Integer>> list = new ArrayList<List<Integer>>();
-            while (packet.isReadable()) {
-                int count = packet.readInt();
-                identifiers.add(packet.readIdentifier());
-                List<Integer> idList = new ArrayList<Integer>();
-                for (int i = 0; i < count; i++) {
-                    idList.add(packet.readInt());
-                }
-                list.add(idList);
+            Map<Identifier, ReforgeDataLoader.ReforgeDefinition> definitions = ReforgeSyncCodec.receive(packet);
+            if (definitions != null) {
+                client.execute(() -> Tierify.REFORGE_DATA_LOADER.setReforgeDefinitions(definitions));
             }
-            client.execute(() -> {
-                Tierify.REFORGE_DATA_LOADER.clearReforgeBaseItems();
-                for (int i = 0; i < identifiers.size(); i++) {
-                    List<Item> items = new ArrayList<Item>();
-                    for (int u = 0; u < list.get(i).size(); u++) {
-                        items.add(Registries.ITEM.get(list.get(i).get(u)));
-                    }
-                    Tierify.REFORGE_DATA_LOADER.putReforgeBaseItems(identifiers.get(i), items);
-                }
-            });
         });
     }
 }
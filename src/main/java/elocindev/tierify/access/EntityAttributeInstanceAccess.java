@@ -0,0 +1,16 @@
+package elocindev.tierify.access;
+
+public interface EntityAttributeInstanceAccess {
+
+    /**
+     * Returns the sum of all modifier values, ignoring their operations.
+     */
+    float getModifierSum();
+
+    /**
+     * Applies all modifiers to the given value in their insertion order: additions are added, every other operation multiplies by
+     * {@code value + 1}.
+     */
+    float applyModifiers(float value);
+
+}
@@ -1,19 +1,23 @@
 package elocindev.tierify.command;
 
-import java.util.ArrayList;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.Collection;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 
-import draylar.tiered.api.AttributeTemplate;
 import draylar.tiered.api.ModifierUtils;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.data.AttributeValidation;
+import elocindev.tierify.network.TieredServerPacket;
+import elocindev.tierify.util.TieredMetrics;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NbtCompound;
-import net.minecraft.registry.Registries;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.server.network.ServerPlayerEntity;
@@ -42,10 +46,76 @@ public class CommandInit {
                 return executeCommand(commandContext.getSource(), EntityArgumentType.getPlayers(commandContext, "targets"), 5);
             })))).then(CommandManager.literal("untier").then(CommandManager.argument("targets", EntityArgumentType.players()).executes((commandContext) -> {
                 return executeCommand(commandContext.getSource(), EntityArgumentType.getPlayers(commandContext, "targets"), -1);
-            }))));
+            }))).then(CommandManager.literal("stats").executes((commandContext) -> {
+                return executeStatsCommand(commandContext.getSource());
+            }).then(CommandManager.literal("enable").executes((commandContext) -> {
+                TieredMetrics.setEnabled(true);
+                commandContext.getSource().sendFeedback(() -> Text.translatable("commands.tiered.stats.enabled"), true);
+                return 1;
+            })).then(CommandManager.literal("disable").executes((commandContext) -> {
+                TieredMetrics.setEnabled(false);
+                commandContext.getSource().sendFeedback(() -> Text.translatable("commands.tiered.stats.disabled"), true);
+                return 1;
+            })).then(CommandManager.literal("reset").executes((commandContext) -> {
+                TieredMetrics.reset();
+                TieredServerPacket.resetHealthSyncCounters();
+                commandContext.getSource().sendFeedback(() -> Text.translatable("commands.tiered.stats.reset"), true);
+                return 1;
+            })).then(CommandManager.literal("dump").executes((commandContext) -> {
+                return executeStatsDumpCommand(commandContext.getSource());
+            }))).then(CommandManager.literal("diagnostics").executes((commandContext) -> {
+                return executeDiagnosticsCommand(commandContext.getSource());
+            })));
         });
     }
 
+    private static int executeStatsCommand(ServerCommandSource source) {
+        long healthSyncRequests = TieredServerPacket.getHealthSyncRequests();
+        long healthSyncPackets = TieredServerPacket.getHealthSyncPackets();
+        source.sendFeedback(() -> Text.translatable("commands.tiered.stats.health_sync", healthSyncRequests, healthSyncPackets, healthSyncRequests - healthSyncPackets), false);
+        if (!TieredMetrics.isEnabled()) {
+            source.sendFeedback(() -> Text.translatable("commands.tiered.stats.not_enabled"), false);
+            return 0;
+        }
+        long seconds = TieredMetrics.getRecordingMillis() / 1000L;
+        source.sendFeedback(() -> Text.translatable("commands.tiered.stats.header", seconds), false);
+        for (TieredMetrics.Timer timer : TieredMetrics.TIMERS) {
+            source.sendFeedback(() -> Text.translatable("commands.tiered.stats.line", timer.getName(), timer.getCalls(), timer.getTotalNanos() / 1000000L, timer.getMeanNanos(),
+                    timer.getPercentileNanos(0.99D), timer.getMaxNanos()), false);
+        }
+        return 1;
+    }
+
+    private static int executeStatsDumpCommand(ServerCommandSource source) {
+        String fileName = "stats-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".csv";
+        Path file = FabricLoader.getInstance().getGameDir().resolve("tierify").resolve(fileName);
+        try {
+            TieredMetrics.writeCsv(file);
+        } catch (IOException exception) {
+            Tierify.LOGGER.error("Failed to write tierify stats to {}", file, exception);
+            source.sendError(Text.translatable("commands.tiered.stats.dump_failed", file.toString()));
+            return 0;
+        }
+        source.sendFeedback(() -> Text.translatable("commands.tiered.stats.dumped", file.toString()), true);
+        return 1;
+    }
+
+    private static int executeDiagnosticsCommand(ServerCommandSource source) {
+        Map<AttributeValidation.Kind, Integer> counts = Tierify.ATTRIBUTE_DATA_LOADER.getValidation().getCounts();
+        int total = counts.values().stream().mapToInt(Integer::intValue).sum();
+        if (total == 0) {
+            source.sendFeedback(() -> Text.translatable("commands.tiered.diagnostics.none"), false);
+            return 0;
+        }
+        source.sendFeedback(() -> Text.translatable("commands.tiered.diagnostics.header", total), false);
+        counts.forEach((kind, count) -> {
+            if (count > 0) {
+                source.sendFeedback(() -> Text.translatable("commands.tiered.diagnostics.line", kind.getName(), count), false);
+            }
+        });
+        return total;
+    }
+
     // 0: common; 1: uncommon; 2: rare; 3: epic; 4: legendary; 5: mythic
     private static int executeCommand(ServerCommandSource source, Collection<ServerPlayerEntity> targets, int tier) {
         Iterator<ServerPlayerEntity> var3 = targets.iterator();
@@ -68,75 +138,18 @@ public class CommandInit {
                     source.sendFeedback(() -> Text.translatable("commands.tiered.untier_failed", itemStack.getItem().getName(itemStack).getString(), serverPlayerEntity.getDisplayName()), true);
                 }
             } else {
-                ArrayList<Identifier> potentialAttributes = new ArrayList<Identifier>();
-                Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().forEach((id, attribute) -> {
-                    if (attribute.isValid(Registries.ITEM.getId(itemStack.getItem()))) {
-                        potentialAttributes.add(new Identifier(attribute.getID()));
-                    }
-                });
-                if (potentialAttributes.size() <= 0) {
+                List<Identifier> potentialTier = ModifierUtils.getAttributeIDsForQuality(TIER_LIST.get(tier), itemStack.getItem());
+                if (potentialTier.size() <= 0) {
                     source.sendFeedback(() -> Text.translatable("commands.tiered.tiering_failed", itemStack.getItem().getName(itemStack).getString(), serverPlayerEntity.getDisplayName()), true);
                     continue;
-                } else {
-
-                    List<Identifier> potentialTier = new ArrayList<Identifier>();
-                    for (int i = 0; i < potentialAttributes.size(); i++) {
-                        if (potentialAttributes.get(i).getPath().contains(TIER_LIST.get(tier))) {
-                            if (TIER_LIST.get(tier).equals("common") && potentialAttributes.get(i).getPath().contains("uncommon")) {
-                                continue;
-                            }
-                            potentialTier.add(potentialAttributes.get(i));
-                        }
-                    }
-
-                    if (potentialTier.size() <= 0) {
-                        source.sendFeedback(() -> Text.translatable("commands.tiered.tiering_failed", itemStack.getItem().getName(itemStack).getString(), serverPlayerEntity.getDisplayName()), true);
-                        continue;
-                    } else {
-
-                        ModifierUtils.removeItemStackAttribute(itemStack);
-
-                        Identifier attribute = potentialTier.get(serverPlayerEntity.getWorld().getRandom().nextInt(potentialTier.size()));
-                        if (attribute != null) {
-                            itemStack.getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).putString(Tierify.NBT_SUBTAG_DATA_KEY, attribute.toString());
-
-                            HashMap<String, Object> nbtMap = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(new Identifier(attribute.toString())).getNbtValues();
+                }
 
-                            // add durability nbt
-                            List<AttributeTemplate> attributeList = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(new Identifier(attribute.toString())).getAttributes();
-                            for (int i = 0; i < attributeList.size(); i++)
-                                if (attributeList.get(i).getAttributeTypeID().equals("tiered:generic.durable")) {
-                                    if (nbtMap == null)
-                                        nbtMap = new HashMap<String, Object>();
-                                    nbtMap.put("durable", (double) Math.round(attributeList.get(i).getEntityAttributeModifier().getValue() * 100.0) / 100.0);
-                                    break;
-                                }
-                            // add nbtMap
-                            if (nbtMap != null) {
-                                NbtCompound nbtCompound = itemStack.getNbt();
-                                for (HashMap.Entry<String, Object> entry : nbtMap.entrySet()) {
-                                    String key = entry.getKey();
-                                    Object value = entry.getValue();
+                ModifierUtils.removeItemStackAttribute(itemStack);
 
-                                    // json list will get read as ArrayList class
-                                    // json map will get read as linkedtreemap
-                                    // json integer is read by gson -> always double
-                                    if (value instanceof String)
-                                        nbtCompound.putString(key, (String) value);
-                                    else if (value instanceof Boolean)
-                                        nbtCompound.putBoolean(key, (boolean) value);
-                                    else if (value instanceof Double) {
-                                        if ((double) value % 1.0 < 0.0001D)
-                                            nbtCompound.putInt(key, (int) Math.round((double) value));
-                                        else
-                                            nbtCompound.putDouble(key, Math.round((double) value * 100.0) / 100.0);
-                                    }
-                                }
-                                itemStack.setNbt(nbtCompound);
-                            }
-                            source.sendFeedback(() -> Text.translatable("commands.tiered.tier", itemStack.getItem().getName(itemStack).getString(), serverPlayerEntity.getDisplayName()), true);
-                        }
-                    }
+                Identifier attribute = potentialTier.get(serverPlayerEntity.getWorld().getRandom().nextInt(potentialTier.size()));
+                if (attribute != null) {
+                    ModifierUtils.setItemStackAttribute(attribute, itemStack);
+                    source.sendFeedback(() -> Text.translatable("commands.tiered.tier", itemStack.getItem().getName(itemStack).getString(), serverPlayerEntity.getDisplayName()), true);
                 }
             }
         }
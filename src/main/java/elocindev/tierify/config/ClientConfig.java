@@ -28,4 +28,8 @@ public class ClientConfig implements ConfigData {
 
     @ConfigEntry.Category("client_settings")
     public boolean centerName = true;
+
+    @Comment("Caches finished tooltips of tiered items instead of rebuilding them every frame.")
+    @ConfigEntry.Category("client_settings")
+    public boolean tooltipCache = true;
 }
@@ -29,6 +29,14 @@ public class CommonConfig {
     public float levelzReforgeModifier = 0.01F;
     @Comment("Modify the biggest weights by this modifier per luck")
     public float luckReforgeModifier = 0.02F;
+    @Comment("Seeds rolls of mob equipment, item frames and armor stands from the world seed and position, for reproducible test worlds")
+    public boolean deterministicRolls = false;
+    @Comment("Generated items (loot, mob equipment, item frames, armor stands) only get marked and roll their tier once a player has them in their inventory. Deferred rolls are not seeded by deterministicRolls")
+    public boolean deferredRolls = false;
+    @Comment("Inventory slots checked per server tick when updating player items after a datapack reload")
+    public int revalidationSlotsPerTick = 512;
+    @Comment("Records call counts and timings of Tierify's server hooks, see /tiered stats. Can also be toggled with /tiered stats enable")
+    public boolean collectMetrics = false;
 
     @Comment("Tier 1 of Reforging (Limestone)")
     @Comment("Qualities here will be able to be reforged onto items while using the Tier 1 reforge material, Limestone by default. Can be changed via the item tag tiered:reforge_tier_1")
@@ -3,7 +3,6 @@ package elocindev.tierify.data;
 import com.google.common.collect.Maps;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
-import com.google.gson.JsonElement;
 import com.google.gson.JsonParseException;
 
 import draylar.tiered.api.PotentialAttribute;
@@ -11,21 +10,39 @@ import elocindev.tierify.gson.EntityAttributeModifierDeserializer;
 import elocindev.tierify.gson.EntityAttributeModifierSerializer;
 import elocindev.tierify.gson.EquipmentSlotDeserializer;
 import elocindev.tierify.gson.EquipmentSlotSerializer;
-import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
+import net.fabricmc.loader.api.FabricLoader;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.attribute.EntityAttributeModifier;
-import net.minecraft.resource.JsonDataLoader;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceFinder;
 import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloader;
 import net.minecraft.text.Style;
 import net.minecraft.util.Identifier;
+import net.minecraft.util.JsonHelper;
 import net.minecraft.util.profiler.Profiler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-public class AttributeDataLoader extends JsonDataLoader implements SimpleSynchronousResourceReloadListener {
+public class AttributeDataLoader implements IdentifiableResourceReloadListener {
     public static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().registerTypeAdapter(EntityAttributeModifier.class, new EntityAttributeModifierDeserializer())
             .registerTypeAdapter(EntityAttributeModifier.class, new EntityAttributeModifierSerializer()).registerTypeAdapter(EquipmentSlot.class, new EquipmentSlotSerializer())
             .registerTypeAdapter(EquipmentSlot.class, new EquipmentSlotDeserializer()).registerTypeHierarchyAdapter(Style.class, new Style.Serializer()).create();
@@ -33,34 +50,270 @@ public class AttributeDataLoader extends JsonDataLoader implements SimpleSynchro
     private static final String PARSING_ERROR_MESSAGE = "Parsing error loading recipe {}";
     private static final String LOADED_RECIPES_MESSAGE = "Loaded {} recipes";
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final ResourceFinder FINDER = ResourceFinder.json("item_attributes");
 
-    private Map<Identifier, PotentialAttribute> itemAttributes = new HashMap<>();
+    // the only reference server side readers go through, replaced as a whole
+    private volatile AttributeSnapshot snapshot = AttributeSnapshot.EMPTY;
+    // attributes synced from the server the client is connected to
+    private volatile AttributeSnapshot clientSnapshot = AttributeSnapshot.EMPTY;
+    // set while an integrated server runs in this process, whose snapshot the client then reads directly
+    private volatile boolean clientSharesServer = false;
+    // a client process reads the client snapshot on every thread, which is the server snapshot while it hosts
+    private final boolean client = FabricLoader.getInstance().getEnvironmentType() == EnvType.CLIENT;
+    // parsed files of the last reload, so unchanged files are not parsed again
+    private final ResourceHashCache<AttributeValidation.Result> resourceCache = new ResourceHashCache<>();
+    // problems found in the files of the last reload
+    private final AttributeValidation validation = new AttributeValidation();
+    // attributes applied by the last reload, used to tell whether anything else replaced them since
+    private Map<Identifier, PotentialAttribute> reloadedItemAttributes = null;
+    // tiers the last reload removed or changed, so only stacks with those tiers need to be updated
+    private volatile Set<Identifier> changedTierIds = Collections.emptySet();
 
-    public AttributeDataLoader() {
-        super(GSON, "item_attributes");
+    @Override
+    public CompletableFuture<Void> reload(ResourceReloader.Synchronizer synchronizer, ResourceManager resourceManager,
+                                          Profiler prepareProfiler, Profiler applyProfiler,
+                                          Executor prepareExecutor, Executor applyExecutor) {
+        return CompletableFuture.supplyAsync(() -> {
+            prepareProfiler.startTick();
+            prepareProfiler.push("item_attributes");
+            List<Map.Entry<Identifier, Resource>> resources = findResources(resourceManager);
+            prepareProfiler.pop();
+            prepareProfiler.endTick();
+            return resources;
+        }, prepareExecutor).thenCompose(resources -> prepare(resources, prepareExecutor)).thenCompose(synchronizer::whenPrepared).thenAcceptAsync(prepared -> {
+            applyProfiler.startTick();
+            applyProfiler.push("item_attributes");
+            apply(prepared);
+            applyProfiler.pop();
+            applyProfiler.endTick();
+        }, applyExecutor);
     }
 
-    @Override
-    protected void apply(Map<Identifier, JsonElement> loader, ResourceManager manager, Profiler profiler) {
+    private static List<Map.Entry<Identifier, Resource>> findResources(ResourceManager manager) {
+        List<Map.Entry<Identifier, Resource>> resources = new ArrayList<>(FINDER.findResources(manager).entrySet());
+        resources.sort(Map.Entry.comparingByKey());
+        return resources;
+    }
+
+    /**
+     * Reads and deserializes every attribute file off the server thread. Each file is parsed as its own task on the reload's
+     * prepare executor and the results are merged in file order, so a later file still replaces an earlier one with the same id.
+     * Files whose content did not change since the last reload reuse their previously parsed and validated attribute.
+     */
+    private CompletableFuture<Prepared> prepare(List<Map.Entry<Identifier, Resource>> resources, Executor prepareExecutor) {
+        long start = System.nanoTime();
+        List<CompletableFuture<ResourceHashCache.Entry<AttributeValidation.Result>>> futures = new ArrayList<>(resources.size());
+        for (Map.Entry<Identifier, Resource> resource : resources) {
+            futures.add(CompletableFuture.supplyAsync(() -> load(resource.getKey(), resource.getValue()), prepareExecutor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).thenApply(done -> {
+            List<ResourceHashCache.Entry<AttributeValidation.Result>> loaded = new ArrayList<>(futures.size());
+            for (CompletableFuture<ResourceHashCache.Entry<AttributeValidation.Result>> future : futures) {
+                loaded.add(future.join());
+            }
+            return merge(resources, loaded, start);
+        });
+    }
+
+    private static Prepared merge(List<Map.Entry<Identifier, Resource>> resources, List<ResourceHashCache.Entry<AttributeValidation.Result>> loaded, long start) {
+
+        Map<Identifier, ResourceHashCache.Entry<AttributeValidation.Result>> entries = new HashMap<>();
         Map<Identifier, PotentialAttribute> readItemAttributes = Maps.newHashMap();
+        List<AttributeValidation.Result> results = new ArrayList<>();
+        for (int i = 0; i < resources.size(); i++) {
+            ResourceHashCache.Entry<AttributeValidation.Result> entry = loaded.get(i);
+            if (entry == null) {
+                continue;
+            }
+            entries.put(resources.get(i).getKey(), entry);
+            AttributeValidation.Result result = entry.getValue();
+            if (result != null) {
+                readItemAttributes.put(new Identifier(result.attribute().getID()), result.attribute());
+                results.add(result);
+            }
+        }
 
-        for (Map.Entry<Identifier, JsonElement> entry : loader.entrySet()) {
-            Identifier identifier = entry.getKey();
+        LOGGER.info("Read {} item attribute files in {} ms", resources.size(), (System.nanoTime() - start) / 1000000L);
+        return new Prepared(entries, Collections.unmodifiableMap(readItemAttributes), results);
+    }
 
-            try {
-                PotentialAttribute itemAttribute = GSON.fromJson(entry.getValue(), PotentialAttribute.class);
-                readItemAttributes.put(new Identifier(itemAttribute.getID()), itemAttribute);
-            } catch (IllegalArgumentException | JsonParseException exception) {
-                LOGGER.error(PARSING_ERROR_MESSAGE, identifier, exception);
+    @Nullable
+    private ResourceHashCache.Entry<AttributeValidation.Result> load(Identifier file, Resource resource) {
+        Identifier identifier = FINDER.toResourceId(file);
+        try {
+            return resourceCache.load(file, resource, content -> parse(identifier, content));
+        } catch (IOException exception) {
+            LOGGER.error(PARSING_ERROR_MESSAGE, identifier, exception);
+            return null;
+        }
+    }
+
+    @Nullable
+    private static AttributeValidation.Result parse(Identifier identifier, byte[] content) {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+            PotentialAttribute itemAttribute = JsonHelper.deserialize(GSON, reader, PotentialAttribute.class);
+            if (itemAttribute == null || itemAttribute.getID() == null || Identifier.tryParse(itemAttribute.getID()) == null) {
+                LOGGER.error("Item attribute {} is missing a valid 'id' field", identifier);
+                return null;
             }
+            return AttributeValidation.validate(identifier, itemAttribute);
+        } catch (IOException | IllegalArgumentException | JsonParseException exception) {
+            LOGGER.error(PARSING_ERROR_MESSAGE, identifier, exception);
+            return null;
+        }
+    }
+
+    private void apply(Prepared prepared) {
+        long start = System.nanoTime();
+        ResourceHashCache.Summary summary = resourceCache.commit(prepared.entries);
+        validation.onReload(prepared.results);
+        // nothing to rebuild if every file is unchanged and nobody replaced the attributes in between
+        Map<Identifier, PotentialAttribute> itemAttributes = snapshot.getItemAttributes();
+        if (summary.hasChanges() || itemAttributes != reloadedItemAttributes) {
+            // unchanged files keep their attribute instance, so anything else was changed or removed
+            Set<Identifier> readChangedTierIds = new HashSet<>();
+            itemAttributes.forEach((id, attribute) -> {
+                if (prepared.itemAttributes.get(id) != attribute) {
+                    readChangedTierIds.add(id);
+                }
+            });
+            changedTierIds = Collections.unmodifiableSet(readChangedTierIds);
+            setItemAttributes(prepared.itemAttributes);
+            reloadedItemAttributes = snapshot.getItemAttributes();
+        } else {
+            changedTierIds = Collections.emptySet();
         }
+        LOGGER.info(LOADED_RECIPES_MESSAGE, prepared.itemAttributes.size());
+        LOGGER.info("Applied item attributes in {} ms, files: {}", (System.nanoTime() - start) / 1000000L, summary);
+    }
+
+    /**
+     * Returns the current snapshot of this process: the client snapshot on a client, the server snapshot on a dedicated server. While a
+     * client hosts an integrated server both are the same, so threads of either logical side agree. Code that knows its side should
+     * prefer {@link #getServerSnapshot()} or {@link #getClientSnapshot()}. Hold on to the result when reading several things that
+     * have to match.
+     */
+    public AttributeSnapshot getSnapshot() {
+        return client ? getClientSnapshot() : snapshot;
+    }
+
+    /**
+     * Returns the attributes loaded by this side's data packs.
+     */
+    public AttributeSnapshot getServerSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the attributes the client plays with, which are the server snapshot itself while hosting the integrated server.
+     */
+    public AttributeSnapshot getClientSnapshot() {
+        return clientSharesServer ? snapshot : clientSnapshot;
+    }
+
+    /**
+     * Lets the client read the server snapshot directly instead of a synced copy. Set while an integrated server runs, since its host
+     * is in the same process and has no use for the sync packet.
+     */
+    public void setClientSharesServer(boolean clientSharesServer) {
+        this.clientSharesServer = clientSharesServer;
+    }
 
-        itemAttributes = readItemAttributes;
-        LOGGER.info(LOADED_RECIPES_MESSAGE, readItemAttributes.size());
+    /**
+     * Drops the server attributes once the server stopped, so a client that joins a remote server next does not keep reading the
+     * data of the last singleplayer world.
+     */
+    public synchronized void onServerStopped() {
+        clientSharesServer = false;
+        snapshot = AttributeSnapshot.EMPTY;
+        reloadedItemAttributes = null;
+        changedTierIds = Collections.emptySet();
     }
 
     public Map<Identifier, PotentialAttribute> getItemAttributes() {
-        return itemAttributes;
+        return getSnapshot().getItemAttributes();
+    }
+
+    /**
+     * Returns the problems found in the attribute files of the last reload.
+     */
+    public AttributeValidation getValidation() {
+        return validation;
+    }
+
+    /**
+     * Returns the ids of the tiers that the last reload removed or whose file changed.
+     */
+    public Set<Identifier> getChangedTierIds() {
+        return changedTierIds;
+    }
+
+    /**
+     * Replaces all server attributes at once by publishing a new snapshot. The given map is copied, readers always see either the
+     * old or the new attributes.
+     */
+    public synchronized void setItemAttributes(Map<Identifier, PotentialAttribute> itemAttributes) {
+        snapshot = snapshot.withItemAttributes(itemAttributes);
+    }
+
+    /**
+     * Replaces the client attributes with the ones synced from a server. The server snapshot of an integrated server is left alone.
+     */
+    public synchronized void setClientItemAttributes(Map<Identifier, PotentialAttribute> itemAttributes) {
+        clientSnapshot = clientSnapshot.withItemAttributes(itemAttributes);
+        clientSharesServer = false;
+    }
+
+    /**
+     * Returns the item to attribute index of the calling side's snapshot.
+     */
+    public ItemAttributeIndex getItemAttributeIndex() {
+        return getSnapshot().getItemAttributeIndex();
+    }
+
+    /**
+     * Publishes a snapshot with a rebuilt item to attribute index. Called once tags are bound, since verifiers resolve against item tags,
+     * which is also when missing verifier tags are reported.
+     */
+    public synchronized ItemAttributeIndex rebuildItemAttributeIndex() {
+        long start = System.nanoTime();
+        AttributeSnapshot next = snapshot.withRebuiltIndex();
+        snapshot = next;
+        validation.checkTags();
+        LOGGER.debug("Built item attribute index for {} attributes in {} ms", next.getItemAttributes().size(), (System.nanoTime() - start) / 1000000L);
+        return next.getItemAttributeIndex();
+    }
+
+    /**
+     * Publishes a client snapshot with a rebuilt item to attribute index, once the client bound the tags of a remote server.
+     */
+    public synchronized void rebuildClientItemAttributeIndex() {
+        // the host reads the server snapshot, which the server side rebuild already covers
+        if (!clientSharesServer) {
+            clientSnapshot = clientSnapshot.withRebuiltIndex();
+        }
+    }
+
+    /**
+     * Returns the attribute for a tier string as stored in item nbt, without parsing an {@link Identifier} for known tiers.
+     *
+     * @param tier tier string, e.g. "tiered:common_armor_1"
+     * @return the attribute, or null if no such attribute is loaded
+     */
+    @Nullable
+    public PotentialAttribute getAttributeForTier(String tier) {
+        return getSnapshot().getAttributeForTier(tier);
+    }
+
+    /**
+     * Returns the identifier for a tier string as stored in item nbt. Known tiers return the interned key of the attribute map.
+     *
+     * @param tier tier string, e.g. "tiered:common_armor_1"
+     * @return the identifier, or null if the string is not a valid identifier
+     */
+    @Nullable
+    public Identifier getTierId(String tier) {
+        return getSnapshot().getTierId(tier);
     }
 
     @Override
@@ -68,8 +321,17 @@ public class AttributeDataLoader extends JsonDataLoader implements SimpleSynchro
         return new Identifier("tiered", "item_attributes");
     }
 
-    @Override
-    public void reload(ResourceManager resourceManager) {
+    private static class Prepared {
+        private final Map<Identifier, ResourceHashCache.Entry<AttributeValidation.Result>> entries;
+        private final Map<Identifier, PotentialAttribute> itemAttributes;
+        private final List<AttributeValidation.Result> results;
+
+        private Prepared(Map<Identifier, ResourceHashCache.Entry<AttributeValidation.Result>> entries, Map<Identifier, PotentialAttribute> itemAttributes,
+                List<AttributeValidation.Result> results) {
+            this.entries = entries;
+            this.itemAttributes = itemAttributes;
+            this.results = results;
+        }
     }
 
 }
@@ -0,0 +1,112 @@
+package elocindev.tierify.data;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jetbrains.annotations.Nullable;
+
+import draylar.tiered.api.PotentialAttribute;
+import net.minecraft.util.Identifier;
+
+/**
+ * Immutable view of the loaded attributes together with everything derived from them.
+ * <p>
+ * {@link AttributeDataLoader} publishes a new snapshot through a single volatile reference whenever the attributes or the item tags
+ * they resolve against change, so a reader that holds on to one snapshot sees attributes, tier lookup and item index that belong
+ * together. Caches of derived data can compare {@link #getVersion()} instead of tracking every input.
+ */
+public class AttributeSnapshot {
+
+    // shared by the client and server snapshots, so a version never names two different snapshots
+    private static final AtomicLong NEXT_VERSION = new AtomicLong();
+
+    public static final AttributeSnapshot EMPTY = new AttributeSnapshot(0L, Collections.emptyMap(), null);
+
+    private final long version;
+    private final Map<Identifier, PotentialAttribute> itemAttributes;
+    // tier strings as stored in item nbt, mapped to the identifier keys of itemAttributes
+    private final Map<String, Identifier> tierIds;
+    // built on first use unless the snapshot was created with an index
+    @Nullable
+    private volatile ItemAttributeIndex itemAttributeIndex;
+
+    private AttributeSnapshot(long version, Map<Identifier, PotentialAttribute> itemAttributes, @Nullable ItemAttributeIndex itemAttributeIndex) {
+        this.version = version;
+        this.itemAttributes = itemAttributes;
+        Map<String, Identifier> readTierIds = new HashMap<>();
+        for (Identifier id : itemAttributes.keySet()) {
+            readTierIds.put(id.toString(), id);
+        }
+        this.tierIds = Collections.unmodifiableMap(readTierIds);
+        this.itemAttributeIndex = itemAttributeIndex;
+    }
+
+    /**
+     * Creates the next snapshot for new attributes. The given map is copied.
+     */
+    public AttributeSnapshot withItemAttributes(Map<Identifier, PotentialAttribute> itemAttributes) {
+        return new AttributeSnapshot(NEXT_VERSION.incrementAndGet(), Collections.unmodifiableMap(new HashMap<>(itemAttributes)), null);
+    }
+
+    /**
+     * Creates the next snapshot for the same attributes with a freshly built item index, e.g. after item tags changed.
+     */
+    public AttributeSnapshot withRebuiltIndex() {
+        return new AttributeSnapshot(NEXT_VERSION.incrementAndGet(), itemAttributes, ItemAttributeIndex.build(itemAttributes));
+    }
+
+    /**
+     * Increases with every published snapshot, on either side.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public Map<Identifier, PotentialAttribute> getItemAttributes() {
+        return itemAttributes;
+    }
+
+    /**
+     * Returns the item to attribute index of this snapshot, building it on first use.
+     */
+    public ItemAttributeIndex getItemAttributeIndex() {
+        ItemAttributeIndex index = itemAttributeIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = itemAttributeIndex;
+                if (index == null) {
+                    index = ItemAttributeIndex.build(itemAttributes);
+                    itemAttributeIndex = index;
+                }
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Returns the identifier for a tier string as stored in item nbt. Known tiers return the interned key of the attribute map.
+     *
+     * @param tier tier string, e.g. "tiered:common_armor_1"
+     * @return the identifier, or null if the string is not a valid identifier
+     */
+    @Nullable
+    public Identifier getTierId(String tier) {
+        Identifier id = tierIds.get(tier);
+        // unknown or not namespaced tiers still resolve like they used to
+        return id != null ? id : Identifier.tryParse(tier);
+    }
+
+    /**
+     * Returns the attribute for a tier string as stored in item nbt, without parsing an {@link Identifier} for known tiers.
+     *
+     * @param tier tier string, e.g. "tiered:common_armor_1"
+     * @return the attribute, or null if no such attribute is loaded
+     */
+    @Nullable
+    public PotentialAttribute getAttributeForTier(String tier) {
+        Identifier id = getTierId(tier);
+        return id == null ? null : itemAttributes.get(id);
+    }
+}
@@ -0,0 +1,226 @@
+package elocindev.tierify.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import draylar.tiered.api.AttributeTemplate;
+import draylar.tiered.api.ItemVerifier;
+import draylar.tiered.api.PotentialAttribute;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+/**
+ * Load time checks of item attribute files.
+ * <p>
+ * Every file is checked once when it is parsed. Templates with an unknown attribute type or without a modifier are dropped, unknown
+ * equipment slots are removed from their template, and verifiers without a valid id or tag are dropped. Whether verifier tags exist
+ * can only be told once tags are bound, so those are checked from {@link AttributeDataLoader#rebuildItemAttributeIndex()}.
+ * <p>
+ * Each problem is logged once per reload together with its source file and counted for {@code /tiered diagnostics}, instead of
+ * being logged whenever the broken entry is used.
+ */
+public class AttributeValidation {
+
+    private static final Logger LOGGER = LogManager.getLogger();
+
+    public enum Kind {
+        UNKNOWN_TYPE,
+        INVALID_MODIFIER,
+        UNKNOWN_SLOT,
+        INVALID_VERIFIER,
+        UNKNOWN_TAG;
+
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /**
+     * A problem found in an attribute file.
+     *
+     * @param file   resource id of the file, for tags the first file using it
+     * @param detail the offending value
+     */
+    public record Problem(Kind kind, Identifier file, String detail) {
+    }
+
+    /**
+     * A parsed attribute file after validation, cached together with the file content.
+     *
+     * @param attribute the attribute with invalid entries dropped, the parsed instance itself if nothing was invalid
+     */
+    public record Result(Identifier file, PotentialAttribute attribute, List<Problem> problems) {
+    }
+
+    private Set<Problem> loadProblems = Collections.emptySet();
+    private Set<Problem> tagProblems = Collections.emptySet();
+    private List<Result> results = Collections.emptyList();
+
+    /**
+     * Checks a freshly parsed attribute.
+     *
+     * @param file resource id of the file the attribute was read from
+     */
+    public static Result validate(Identifier file, PotentialAttribute attribute) {
+        List<Problem> problems = new ArrayList<>();
+        boolean changed = false;
+
+        List<AttributeTemplate> templates = new ArrayList<>();
+        if (attribute.getAttributes() == null) {
+            changed = true;
+        } else {
+            for (AttributeTemplate template : attribute.getAttributes()) {
+                AttributeTemplate valid = validateTemplate(file, template, problems);
+                if (valid != null) {
+                    templates.add(valid);
+                }
+                changed |= valid != template;
+            }
+        }
+
+        List<ItemVerifier> verifiers = new ArrayList<>();
+        if (attribute.getVerifiers() == null) {
+            changed = true;
+        } else {
+            for (ItemVerifier verifier : attribute.getVerifiers()) {
+                if (isValidVerifier(verifier)) {
+                    verifiers.add(verifier);
+                } else {
+                    problems.add(new Problem(Kind.INVALID_VERIFIER, file, verifier == null ? "null" : "id " + verifier.getId() + ", tag " + verifier.getTag()));
+                    changed = true;
+                }
+            }
+        }
+
+        if (!changed) {
+            return new Result(file, attribute, Collections.emptyList());
+        }
+        PotentialAttribute validAttribute = new PotentialAttribute(attribute.getID(), verifiers, attribute.getWeight(), attribute.getStyle(), templates, attribute.getNbtValues(),
+                attribute.getQuality());
+        return new Result(file, validAttribute, Collections.unmodifiableList(problems));
+    }
+
+    private static AttributeTemplate validateTemplate(Identifier file, AttributeTemplate template, List<Problem> problems) {
+        if (template == null || template.getEntityAttributeModifier() == null) {
+            problems.add(new Problem(Kind.INVALID_MODIFIER, file, template == null ? "null" : template.getAttributeTypeID()));
+            return null;
+        }
+        if (template.getAttributeTypeID() == null || template.getAttribute() == null) {
+            problems.add(new Problem(Kind.UNKNOWN_TYPE, file, String.valueOf(template.getAttributeTypeID())));
+            return null;
+        }
+        // the deserializer leaves unknown slot names as null
+        EquipmentSlot[] required = withoutNulls(template.getRequiredEquipmentSlots());
+        EquipmentSlot[] optional = withoutNulls(template.getOptionalEquipmentSlots());
+        if (required == template.getRequiredEquipmentSlots() && optional == template.getOptionalEquipmentSlots()) {
+            return template;
+        }
+        problems.add(new Problem(Kind.UNKNOWN_SLOT, file, template.getAttributeTypeID()));
+        return new AttributeTemplate(template.getAttributeTypeID(), template.getEntityAttributeModifier(), required, optional);
+    }
+
+    private static EquipmentSlot[] withoutNulls(EquipmentSlot[] slots) {
+        if (slots == null) {
+            return null;
+        }
+        int count = 0;
+        for (EquipmentSlot slot : slots) {
+            if (slot != null) {
+                count++;
+            }
+        }
+        if (count == slots.length) {
+            return slots;
+        }
+        EquipmentSlot[] valid = new EquipmentSlot[count];
+        int index = 0;
+        for (EquipmentSlot slot : slots) {
+            if (slot != null) {
+                valid[index++] = slot;
+            }
+        }
+        return valid;
+    }
+
+    private static boolean isValidVerifier(ItemVerifier verifier) {
+        if (verifier == null) {
+            return false;
+        }
+        // the id wins over the tag, see ItemVerifier
+        if (verifier.getId() != null) {
+            return Identifier.tryParse(verifier.getId()) != null;
+        }
+        return verifier.getTag() != null && !verifier.getTag().startsWith("#") && Identifier.tryParse(verifier.getTag()) != null;
+    }
+
+    /**
+     * Replaces the problems of the last reload and logs each distinct one once.
+     */
+    public synchronized void onReload(Collection<Result> results) {
+        Set<Problem> problems = new LinkedHashSet<>();
+        for (Result result : results) {
+            problems.addAll(result.problems());
+        }
+        for (Problem problem : problems) {
+            LOGGER.warn("Item attribute {} has an invalid entry and it was skipped: {} {}", problem.file(), problem.kind().getName(), problem.detail());
+        }
+        this.results = List.copyOf(results);
+        this.loadProblems = Collections.unmodifiableSet(problems);
+    }
+
+    /**
+     * Looks up every verifier tag of the last reload. A missing tag is logged once, with the first file using it.
+     */
+    public synchronized void checkTags() {
+        Map<String, Problem> problems = new LinkedHashMap<>();
+        for (Result result : results) {
+            for (ItemVerifier verifier : result.attribute().getVerifiers()) {
+                if (verifier.getId() != null || problems.containsKey(verifier.getTag())) {
+                    continue;
+                }
+                if (Registries.ITEM.getEntryList(verifier.getTagKey()).isEmpty()) {
+                    problems.put(verifier.getTag(), new Problem(Kind.UNKNOWN_TAG, result.file(), verifier.getTag()));
+                }
+            }
+        }
+        Set<Problem> readTagProblems = new LinkedHashSet<>(problems.values());
+        for (Problem problem : readTagProblems) {
+            if (!tagProblems.contains(problem)) {
+                LOGGER.warn("Item attribute {} references the item tag {}, which does not exist", problem.file(), problem.detail());
+            }
+        }
+        tagProblems = Collections.unmodifiableSet(readTagProblems);
+    }
+
+    /**
+     * Returns every problem of the last reload, in the order they were found.
+     */
+    public synchronized List<Problem> getProblems() {
+        List<Problem> problems = new ArrayList<>(loadProblems);
+        problems.addAll(tagProblems);
+        return problems;
+    }
+
+    public synchronized Map<Kind, Integer> getCounts() {
+        Map<Kind, Integer> counts = new EnumMap<>(Kind.class);
+        for (Kind kind : Kind.values()) {
+            counts.put(kind, 0);
+        }
+        for (Problem problem : getProblems()) {
+            counts.merge(problem.kind(), 1, Integer::sum);
+        }
+        return counts;
+    }
+}
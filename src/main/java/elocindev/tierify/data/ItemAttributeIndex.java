@@ -0,0 +1,511 @@
+package elocindev.tierify.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.jetbrains.annotations.Nullable;
+
+import draylar.tiered.api.ItemVerifier;
+import draylar.tiered.api.PotentialAttribute;
+import elocindev.tierify.Tierify;
+import elocindev.tierify.util.AliasTable;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+import net.minecraft.util.math.random.Random;
+
+/**
+ * Precomputed lookup from item raw id to the attributes that are valid for that item.
+ * <p>
+ * Built once after attributes and tags are loaded so a tier roll no longer has to walk every
+ * {@link PotentialAttribute} and resolve its verifiers.
+ */
+public class ItemAttributeIndex {
+
+    public static final List<String> DEFAULT_QUALITIES = List.of("common", "uncommon", "rare", "epic", "legendary", "mythic");
+
+    public static final ItemAttributeIndex EMPTY = new ItemAttributeIndex(new Candidates[0], new int[0], DEFAULT_QUALITIES);
+
+    private final Candidates[] candidatesByRawId;
+    // bit per equipment slot ordinal, set if Tierify#isPreferredEquipmentSlot holds for the item
+    private final int[] preferredSlotsByRawId;
+    private final List<String> qualityNames;
+    private final Map<String, Integer> qualityOrdinals;
+
+    private ItemAttributeIndex(Candidates[] candidatesByRawId, int[] preferredSlotsByRawId, List<String> qualityNames) {
+        this.candidatesByRawId = candidatesByRawId;
+        this.preferredSlotsByRawId = preferredSlotsByRawId;
+        this.qualityNames = qualityNames;
+        this.qualityOrdinals = new HashMap<>();
+        for (int i = 0; i < qualityNames.size(); i++) {
+            this.qualityOrdinals.put(qualityNames.get(i), i);
+        }
+    }
+
+    /**
+     * Builds an index for every registered item against the given attributes.
+     *
+     * @param itemAttributes attributes keyed by their id
+     * @return the finished index
+     */
+    public static ItemAttributeIndex build(Map<Identifier, PotentialAttribute> itemAttributes) {
+        // sort so candidate order does not depend on HashMap iteration order
+        List<Map.Entry<Identifier, PotentialAttribute>> attributes = new ArrayList<>(itemAttributes.entrySet());
+        attributes.sort(Comparator.comparing(entry -> entry.getKey().toString()));
+
+        // resolve every attribute's quality once, rolls by quality then only look at the per quality buckets
+        List<String> qualityNames = collectQualityNames(itemAttributes.values());
+        Map<String, Integer> qualityOrdinals = new HashMap<>();
+        for (int i = 0; i < qualityNames.size(); i++) {
+            qualityOrdinals.put(qualityNames.get(i), i);
+        }
+        // kept with this index, attribute instances are shared between reloads and snapshots
+        int[] qualityByAttribute = new int[attributes.size()];
+        for (int i = 0; i < attributes.size(); i++) {
+            Map.Entry<Identifier, PotentialAttribute> entry = attributes.get(i);
+            qualityByAttribute[i] = resolveQuality(entry.getKey(), entry.getValue().getQuality(), qualityOrdinals);
+        }
+
+        int itemCount = Registries.ITEM.size();
+        List<List<Integer>> matchesByRawId = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            matchesByRawId.add(null);
+        }
+
+        // walk each attribute's resolved verifier items instead of testing every item against every attribute
+        BitSet validItems = new BitSet(itemCount);
+        for (int attributeIndex = 0; attributeIndex < attributes.size(); attributeIndex++) {
+            validItems.clear();
+            for (ItemVerifier verifier : attributes.get(attributeIndex).getValue().getVerifiers()) {
+                validItems.or(verifier.getValidItems());
+            }
+            for (int rawId = validItems.nextSetBit(0); rawId >= 0 && rawId < itemCount; rawId = validItems.nextSetBit(rawId + 1)) {
+                if (matchesByRawId.get(rawId) == null) {
+                    matchesByRawId.set(rawId, new ArrayList<>());
+                }
+                matchesByRawId.get(rawId).add(attributeIndex);
+            }
+        }
+
+        Candidates[] candidatesByRawId = new Candidates[itemCount];
+        List<Identifier> ids = new ArrayList<>();
+        List<PotentialAttribute> matched = new ArrayList<>();
+        for (int rawId = 0; rawId < itemCount; rawId++) {
+            List<Integer> matches = matchesByRawId.get(rawId);
+            if (matches == null) {
+                continue;
+            }
+            ids.clear();
+            matched.clear();
+            int[] matchedQualities = new int[matches.size()];
+            for (int i = 0; i < matches.size(); i++) {
+                int attributeIndex = matches.get(i);
+                ids.add(attributes.get(attributeIndex).getKey());
+                matched.add(attributes.get(attributeIndex).getValue());
+                matchedQualities[i] = qualityByAttribute[attributeIndex];
+            }
+            candidatesByRawId[rawId] = new Candidates(ids, matched, matchedQualities, qualityNames.size());
+        }
+
+        // the preferred slot only depends on item class and tags, so resolve it once per item
+        int[] preferredSlotsByRawId = new int[itemCount];
+        for (Item item : Registries.ITEM) {
+            int rawId = Registries.ITEM.getRawId(item);
+            if (rawId < 0 || rawId >= itemCount) {
+                continue;
+            }
+            ItemStack stack = item.getDefaultStack();
+            for (EquipmentSlot slot : EquipmentSlot.values()) {
+                if (Tierify.isPreferredEquipmentSlot(stack, slot)) {
+                    preferredSlotsByRawId[rawId] |= 1 << slot.ordinal();
+                }
+            }
+        }
+        return new ItemAttributeIndex(candidatesByRawId, preferredSlotsByRawId, qualityNames);
+    }
+
+    // the default qualities first, then any other quality named in the reforge config or a data file
+    private static List<String> collectQualityNames(Collection<PotentialAttribute> attributes) {
+        Set<String> names = new LinkedHashSet<>(DEFAULT_QUALITIES);
+        for (List<String> qualities : List.of(Tierify.CONFIG.tier_1_qualities, Tierify.CONFIG.tier_2_qualities, Tierify.CONFIG.tier_3_qualities)) {
+            for (String quality : qualities) {
+                names.add(quality.toLowerCase(Locale.ROOT));
+            }
+        }
+        for (PotentialAttribute attribute : attributes) {
+            if (attribute.getQuality() != null) {
+                names.add(attribute.getQuality().toLowerCase(Locale.ROOT));
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    /**
+     * Resolves the quality of an attribute: the quality of its data file if set, otherwise the first part of the id path that
+     * names a quality, e.g. "rare" for "tiered:rare_armor_2".
+     */
+    private static int resolveQuality(Identifier id, @Nullable String quality, Map<String, Integer> qualityOrdinals) {
+        if (quality != null) {
+            return qualityOrdinals.getOrDefault(quality.toLowerCase(Locale.ROOT), -1);
+        }
+        String path = id.getPath().toLowerCase(Locale.ROOT);
+        for (String part : path.split("[^a-z0-9]+")) {
+            Integer ordinal = qualityOrdinals.get(part);
+            if (ordinal != null) {
+                return ordinal;
+            }
+        }
+        // paths without separators, the longest contained name wins so "uncommon" is not read as "common"
+        int ordinal = -1;
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : qualityOrdinals.entrySet()) {
+            if (entry.getKey().length() > length && path.contains(entry.getKey())) {
+                ordinal = entry.getValue();
+                length = entry.getKey().length();
+            }
+        }
+        return ordinal;
+    }
+
+    /**
+     * Returns the attributes valid for the given item, or {@link Candidates#EMPTY} if there are none.
+     */
+    public Candidates get(Item item) {
+        int rawId = Registries.ITEM.getRawId(item);
+        if (rawId < 0 || rawId >= candidatesByRawId.length || candidatesByRawId[rawId] == null) {
+            return Candidates.EMPTY;
+        }
+        return candidatesByRawId[rawId];
+    }
+
+    /**
+     * Returns the quality names the attribute quality ordinals refer to.
+     */
+    public List<String> getQualityNames() {
+        return qualityNames;
+    }
+
+    /**
+     * Returns the ordinal of a quality name, ignoring case, or -1 if no attribute can have it.
+     */
+    public int getQualityOrdinal(String quality) {
+        return qualityOrdinals.getOrDefault(quality.toLowerCase(Locale.ROOT), -1);
+    }
+
+    /**
+     * Returns the distinct ordinals of the given quality names, skipping unknown ones.
+     */
+    public int[] getQualityOrdinals(List<String> qualities) {
+        int[] ordinals = new int[qualities.size()];
+        int size = 0;
+        for (String quality : qualities) {
+            int ordinal = getQualityOrdinal(quality);
+            boolean duplicate = ordinal < 0;
+            for (int i = 0; i < size && !duplicate; i++) {
+                duplicate = ordinals[i] == ordinal;
+            }
+            if (!duplicate) {
+                ordinals[size++] = ordinal;
+            }
+        }
+        return Arrays.copyOf(ordinals, size);
+    }
+
+    /**
+     * Cached {@link Tierify#isPreferredEquipmentSlot(ItemStack, EquipmentSlot)}.
+     */
+    public boolean isPreferredEquipmentSlot(ItemStack stack, EquipmentSlot slot) {
+        int rawId = Registries.ITEM.getRawId(stack.getItem());
+        if (rawId < 0 || rawId >= preferredSlotsByRawId.length) {
+            return Tierify.isPreferredEquipmentSlot(stack, slot);
+        }
+        return (preferredSlotsByRawId[rawId] & (1 << slot.ordinal())) != 0;
+    }
+
+    /**
+     * Attribute ids valid for one item together with their raw data file weights and the samplers for each roll mode.
+     */
+    public static class Candidates {
+
+        public static final Candidates EMPTY = new Candidates(List.of(), List.of(), new int[0], 0);
+
+        private final Identifier[] ids;
+        private final PotentialAttribute[] attributes;
+        private final int[] weights;
+        private final Bucket rollBucket;
+        private final Bucket reforgeBucket;
+        private final QualityBucket[] qualityBuckets;
+
+        /**
+         * @param qualities quality ordinal of each attribute, -1 for none
+         */
+        private Candidates(List<Identifier> ids, List<PotentialAttribute> attributes, int[] qualities, int qualityCount) {
+            this.ids = ids.toArray(new Identifier[0]);
+            this.attributes = attributes.toArray(new PotentialAttribute[0]);
+            this.weights = new int[this.attributes.length];
+            for (int i = 0; i < this.attributes.length; i++) {
+                this.weights[i] = this.attributes[i].getWeight();
+            }
+            this.rollBucket = createRollBucket(this.weights);
+            this.reforgeBucket = createReforgeBucket(this.weights);
+            this.qualityBuckets = createQualityBuckets(qualities, this.weights, qualityCount);
+        }
+
+        private static QualityBucket[] createQualityBuckets(int[] qualities, int[] weights, int qualityCount) {
+            int[] counts = new int[qualityCount];
+            for (int quality : qualities) {
+                if (quality >= 0 && quality < qualityCount) {
+                    counts[quality]++;
+                }
+            }
+            QualityBucket[] buckets = new QualityBucket[qualityCount];
+            for (int quality = 0; quality < qualityCount; quality++) {
+                int[] members = new int[counts[quality]];
+                int size = 0;
+                for (int i = 0; i < qualities.length; i++) {
+                    if (qualities[i] == quality) {
+                        members[size++] = i;
+                    }
+                }
+                buckets[quality] = size == 0 ? QualityBucket.EMPTY : new QualityBucket(members, weights);
+            }
+            return buckets;
+        }
+
+        // normal rolls only consider attributes with a positive weight
+        private static Bucket createRollBucket(int[] weights) {
+            int[] members = new int[weights.length];
+            int[] memberWeights = new int[weights.length];
+            int size = 0;
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] > 0) {
+                    members[size] = i;
+                    memberWeights[size] = weights[i];
+                    size++;
+                }
+            }
+            return new Bucket(Arrays.copyOf(members, size), Arrays.copyOf(memberWeights, size));
+        }
+
+        // reforging considers every attribute and flattens the biggest weights by the reforge modifier
+        private static Bucket createReforgeBucket(int[] weights) {
+            int[] members = new int[weights.length];
+            int[] memberWeights = new int[weights.length];
+            int maxWeight = 0;
+            for (int i = 0; i < weights.length; i++) {
+                members[i] = i;
+                memberWeights[i] = weights[i] + 1;
+                maxWeight = Math.max(maxWeight, memberWeights[i]);
+            }
+            if (memberWeights.length > 2) {
+                for (int i = 0; i < memberWeights.length; i++) {
+                    if (memberWeights[i] > maxWeight / 2) {
+                        memberWeights[i] = (int) (memberWeights[i] * Tierify.CONFIG.reforgeModifier);
+                    }
+                }
+            }
+            return new Bucket(members, memberWeights);
+        }
+
+        public Bucket getRollBucket() {
+            return rollBucket;
+        }
+
+        public Bucket getReforgeBucket() {
+            return reforgeBucket;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public boolean isEmpty() {
+            return ids.length == 0;
+        }
+
+        public Identifier getId(int index) {
+            return ids[index];
+        }
+
+        public PotentialAttribute getAttribute(int index) {
+            return attributes[index];
+        }
+
+        public int getWeight(int index) {
+            return weights[index];
+        }
+
+        /**
+         * Returns the candidate indices of the given quality ordinal.
+         */
+        public int[] getQualityMembers(int quality) {
+            if (quality < 0 || quality >= qualityBuckets.length) {
+                return QualityBucket.EMPTY.members;
+            }
+            return qualityBuckets[quality].members;
+        }
+
+        /**
+         * Draws a candidate from the union of the given qualities by data file weight. Normal rolls skip attributes without a
+         * positive weight, reforging considers all of them with their weight plus one.
+         *
+         * @param qualities distinct quality ordinals, see {@link ItemAttributeIndex#getQualityOrdinals(List)}
+         * @param reforge   whether the roll is a reforge
+         * @param random    random source
+         * @return candidate index, or -1 if no attribute of these qualities can be rolled
+         */
+        public int sampleQualities(int[] qualities, boolean reforge, Random random) {
+            int totalWeight = 0;
+            for (int quality : qualities) {
+                if (quality < qualityBuckets.length) {
+                    totalWeight += qualityBuckets[quality].getTotalWeight(reforge);
+                }
+            }
+            if (totalWeight <= 0) {
+                return -1;
+            }
+            int value = random.nextInt(totalWeight);
+            for (int quality : qualities) {
+                if (quality >= qualityBuckets.length) {
+                    continue;
+                }
+                QualityBucket bucket = qualityBuckets[quality];
+                int weight = bucket.getTotalWeight(reforge);
+                if (value < weight) {
+                    return bucket.sample(value, reforge);
+                }
+                value -= weight;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of the given attribute id, or -1 if it is not valid for this item.
+         */
+        public int indexOf(Identifier id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i].equals(id)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+
+    /**
+     * Candidates of one quality for one item, with cumulative weights for normal rolls and reforging.
+     */
+    private static class QualityBucket {
+
+        private static final QualityBucket EMPTY = new QualityBucket(new int[0], new int[0]);
+
+        private final int[] members;
+        private final int[] rollWeights;
+        private final int[] reforgeWeights;
+
+        private QualityBucket(int[] members, int[] weights) {
+            this.members = members;
+            this.rollWeights = new int[members.length];
+            this.reforgeWeights = new int[members.length];
+            int rollTotal = 0;
+            int reforgeTotal = 0;
+            for (int i = 0; i < members.length; i++) {
+                int weight = weights[members[i]];
+                rollTotal += Math.max(weight, 0);
+                reforgeTotal += Math.max(weight + 1, 0);
+                this.rollWeights[i] = rollTotal;
+                this.reforgeWeights[i] = reforgeTotal;
+            }
+        }
+
+        private int getTotalWeight(boolean reforge) {
+            int[] cumulative = reforge ? reforgeWeights : rollWeights;
+            return cumulative.length == 0 ? 0 : cumulative[cumulative.length - 1];
+        }
+
+        // value must be below the total weight
+        private int sample(int value, boolean reforge) {
+            int[] cumulative = reforge ? reforgeWeights : rollWeights;
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (cumulative[middle] > value) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return members[low];
+        }
+    }
+
+    /**
+     * Sampler for one roll mode of one item.
+     * <p>
+     * Entries are split into a high and a low group at a third of the biggest weight. LevelZ and luck only scale the high group,
+     * so their adjustment is applied by picking a group first and then drawing from that group's alias table.
+     */
+    public static class Bucket {
+
+        private final int[] members;
+        private final AliasTable high;
+        private final AliasTable low;
+
+        private Bucket(int[] members, int[] weights) {
+            this.members = members;
+
+            int maxWeight = 0;
+            for (int weight : weights) {
+                maxWeight = Math.max(maxWeight, weight);
+            }
+            int[] highWeights = new int[weights.length];
+            int[] lowWeights = new int[weights.length];
+            for (int i = 0; i < weights.length; i++) {
+                if (weights[i] > maxWeight / 3) {
+                    highWeights[i] = weights[i];
+                } else {
+                    lowWeights[i] = weights[i];
+                }
+            }
+            this.high = new AliasTable(members, highWeights);
+            this.low = new AliasTable(members, lowWeights);
+        }
+
+        public boolean isEmpty() {
+            return members.length == 0;
+        }
+
+        /**
+         * Draws a candidate index.
+         *
+         * @param highWeightFactor multiplier for the weights of the high group, 1 for no adjustment
+         * @param random           random source
+         * @return index into the owning {@link Candidates}, or -1 if this bucket is empty
+         */
+        public int sample(float highWeightFactor, Random random) {
+            if (members.length == 0) {
+                return -1;
+            }
+            double highWeight = high.getTotalWeight() * (double) Math.max(highWeightFactor, 0.0F);
+            double totalWeight = highWeight + low.getTotalWeight();
+            if (totalWeight <= 0.0D) {
+                // If every weight got scaled away
+                return members[random.nextInt(members.length)];
+            }
+            AliasTable table = random.nextDouble() * totalWeight < highWeight ? high : low;
+            return table.sample(random.nextDouble());
+        }
+    }
+}
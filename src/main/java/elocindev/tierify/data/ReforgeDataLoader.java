@@ -1,11 +1,13 @@
 package elocindev.tierify.data;
 
-import java.io.InputStream;
+import java.io.ByteArrayInputStream;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -33,12 +35,16 @@ public class ReforgeDataLoader implements IdentifiableResourceReloadListener {
     private static final Logger LOGGER = LogManager.getLogger("TieredZ");
 
     // Maps reforge definitions by their file identifier (e.g., "tiered:wooden_club")
-    private Map<Identifier, ReforgeDefinition> reforgeDefinitions = new HashMap<>();
+    private volatile Map<Identifier, ReforgeDefinition> reforgeDefinitions = Collections.emptyMap();
     
-    // Legacy maps for backward compatibility
-    private List<Identifier> reforgeIdentifiers = new ArrayList<>();
-    private Map<Identifier, List<Item>> reforgeBaseMap = new HashMap<>();
-    private Map<Identifier, ReforgeBaseData> reforgeBaseDataMap = new HashMap<>();
+    // Legacy list for backward compatibility, every reforgeable item id, rebuilt together with the item index
+    private volatile List<Identifier> reforgeIdentifiers = new ArrayList<>();
+
+    // definition per item raw id, built lazily and after tags are bound
+    private volatile ReforgeDefinition[] definitionsByRawId = null;
+
+    // parsed files of the last reload, so unchanged files are not parsed again
+    private final ResourceHashCache<ReforgeDefinition> resourceCache = new ResourceHashCache<>();
     
     /**
      * Holds both direct item references and tag references for reforge base materials
@@ -124,187 +130,189 @@ public class ReforgeDataLoader implements IdentifiableResourceReloadListener {
     public CompletableFuture<Void> reload(ResourceReloader.Synchronizer synchronizer, ResourceManager resourceManager,
                                           Profiler prepareProfiler, Profiler applyProfiler,
                                           Executor prepareExecutor, Executor applyExecutor) {
-        return CompletableFuture.runAsync(() -> {
+        return CompletableFuture.supplyAsync(() -> {
             prepareProfiler.startTick();
+            prepareProfiler.push("reforge_items");
+            Map<Identifier, ResourceHashCache.Entry<ReforgeDefinition>> prepared = readReforgeData(resourceManager);
+            prepareProfiler.pop();
             prepareProfiler.endTick();
-        }, prepareExecutor).thenCompose(synchronizer::whenPrepared).thenRunAsync(() -> {
+            return prepared;
+        }, prepareExecutor).thenCompose(synchronizer::whenPrepared).thenAcceptAsync(prepared -> {
             applyProfiler.startTick();
             applyProfiler.push("reforge_items");
-            loadReforgeData(resourceManager);
+            loadReforgeData(prepared);
             applyProfiler.pop();
             applyProfiler.endTick();
         }, applyExecutor);
     }
 
-    private void loadReforgeData(ResourceManager resourceManager) {
-        // Clear existing data
-        reforgeDefinitions.clear();
-        reforgeIdentifiers.clear();
-        reforgeBaseMap.clear();
-        reforgeBaseDataMap.clear();
-
-        // Use arrays for counter to allow modification in lambda
-        final int[] filesProcessed = {0};
-        final int[] filesSkipped = {0};
-        final int[] tagsLoaded = {0};
-
+    // reads every reforge file, files whose content did not change since the last reload keep their parsed definition
+    private Map<Identifier, ResourceHashCache.Entry<ReforgeDefinition>> readReforgeData(ResourceManager resourceManager) {
+        Map<Identifier, ResourceHashCache.Entry<ReforgeDefinition>> entries = new TreeMap<>();
         resourceManager.findResources("reforge_items", id -> id.getPath().endsWith(".json")).forEach((id, resourceRef) -> {
             try {
-                InputStream stream = resourceRef.getInputStream();
-                JsonObject data = JsonParser.parseReader(new InputStreamReader(stream)).getAsJsonObject();
-
-                // Validate required fields exist
-                if (!data.has("base") || !data.get("base").isJsonArray()) {
-                    LOGGER.error("Resource {} is missing required 'base' array field", id.toString());
-                    filesSkipped[0]++;
-                    return;
-                }
-                if (!data.has("items") || !data.get("items").isJsonArray()) {
-                    LOGGER.error("Resource {} is missing required 'items' array field", id.toString());
-                    filesSkipped[0]++;
-                    return;
-                }
+                entries.put(id, resourceCache.load(id, resourceRef, content -> parseReforgeDefinition(id, content)));
+            } catch (Exception e) {
+                LOGGER.error("Error occurred while loading resource {}. {}", id.toString(), e.toString());
+            }
+        });
+        return entries;
+    }
 
-                // First, parse the base materials (items or tags)
-                List<Item> baseItems = new ArrayList<Item>();
-                List<TagKey<Item>> baseTags = new ArrayList<TagKey<Item>>();
+    private static ReforgeDefinition parseReforgeDefinition(Identifier id, byte[] content) {
+        try {
+            JsonObject data = JsonParser.parseReader(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)).getAsJsonObject();
+
+            // Validate required fields exist
+            if (!data.has("base") || !data.get("base").isJsonArray()) {
+                LOGGER.error("Resource {} is missing required 'base' array field", id.toString());
+                return null;
+            }
+            if (!data.has("items") || !data.get("items").isJsonArray()) {
+                LOGGER.error("Resource {} is missing required 'items' array field", id.toString());
+                return null;
+            }
+
+            // First, parse the base materials (items or tags)
+            List<Item> baseItems = new ArrayList<Item>();
+            List<TagKey<Item>> baseTags = new ArrayList<TagKey<Item>>();
+            
+            for (int i = 0; i < data.getAsJsonArray("base").size(); i++) {
+                String baseEntry = data.getAsJsonArray("base").get(i).getAsString();
                 
-                for (int i = 0; i < data.getAsJsonArray("base").size(); i++) {
-                    String baseEntry = data.getAsJsonArray("base").get(i).getAsString();
-                    
-                    try {
-                        // Check if this is a tag (starts with #)
-                        if (TagParsingHelper.isTagReference(baseEntry)) {
-                            String tagId = TagParsingHelper.extractTagId(baseEntry);
-                            TagKey<Item> tag = TagParsingHelper.createItemTagFromId(tagId);
-                            baseTags.add(tag);
-                            LOGGER.debug("Loaded tag-based reforge base: {} in {}", tagId, id);
-                            tagsLoaded[0]++;
-                        } else {
-                            // Handle as direct item ID
-                            Item item = TagParsingHelper.getValidItem(baseEntry);
-                            if (item == null) {
-                                LOGGER.debug("Resource {} skipped invalid item identifier in base list: {}", id.toString(), baseEntry);
-                                continue;
-                            }
-                            baseItems.add(item);
+                try {
+                    // Check if this is a tag (starts with #)
+                    if (TagParsingHelper.isTagReference(baseEntry)) {
+                        String tagId = TagParsingHelper.extractTagId(baseEntry);
+                        TagKey<Item> tag = TagParsingHelper.createItemTagFromId(tagId);
+                        baseTags.add(tag);
+                        LOGGER.debug("Loaded tag-based reforge base: {} in {}", tagId, id);
+                    } else {
+                        // Handle as direct item ID
+                        Item item = TagParsingHelper.getValidItem(baseEntry);
+                        if (item == null) {
+                            LOGGER.debug("Resource {} skipped invalid item identifier in base list: {}", id.toString(), baseEntry);
+                            continue;
                         }
-                    } catch (Exception e) {
-                        LOGGER.error("Resource {} failed to process base entry '{}': {}", id.toString(), baseEntry, e.getMessage());
-                        continue;
+                        baseItems.add(item);
                     }
+                } catch (Exception e) {
+                    LOGGER.error("Resource {} failed to process base entry '{}': {}", id.toString(), baseEntry, e.getMessage());
+                    continue;
                 }
+            }
+            
+            // Now process the items (store both direct items and tags without expansion)
+            List<Identifier> directItems = new ArrayList<>();
+            List<TagKey<Item>> itemTags = new ArrayList<>();
+            
+            for (int u = 0; u < data.getAsJsonArray("items").size(); u++) {
+                String itemEntry = data.getAsJsonArray("items").get(u).getAsString();
                 
-                // Now process the items (store both direct items and tags without expansion)
-                List<Identifier> directItems = new ArrayList<>();
-                List<TagKey<Item>> itemTags = new ArrayList<>();
-                
-                for (int u = 0; u < data.getAsJsonArray("items").size(); u++) {
-                    String itemEntry = data.getAsJsonArray("items").get(u).getAsString();
-                    
-                    try {
-                        // Check if this is a tag (starts with #)
-                        if (TagParsingHelper.isTagReference(itemEntry)) {
-                            String tagId = TagParsingHelper.extractTagId(itemEntry);
-                            TagKey<Item> itemTag = TagParsingHelper.createItemTagFromId(tagId);
-                            itemTags.add(itemTag);
-                            LOGGER.debug("Loaded tag-based reforge items: {} in {}", tagId, id);
-                            tagsLoaded[0]++;
-                        } else {
-                            // Handle as direct item ID
-                            Item item = TagParsingHelper.getValidItem(itemEntry);
-                            if (item == null) {
-                                LOGGER.debug("Resource {} skipped invalid item identifier in items list: {}", id.toString(), itemEntry);
-                                continue;
-                            }
-                            directItems.add(new Identifier(itemEntry));
+                try {
+                    // Check if this is a tag (starts with #)
+                    if (TagParsingHelper.isTagReference(itemEntry)) {
+                        String tagId = TagParsingHelper.extractTagId(itemEntry);
+                        TagKey<Item> itemTag = TagParsingHelper.createItemTagFromId(tagId);
+                        itemTags.add(itemTag);
+                        LOGGER.debug("Loaded tag-based reforge items: {} in {}", tagId, id);
+                    } else {
+                        // Handle as direct item ID
+                        Item item = TagParsingHelper.getValidItem(itemEntry);
+                        if (item == null) {
+                            LOGGER.debug("Resource {} skipped invalid item identifier in items list: {}", id.toString(), itemEntry);
+                            continue;
                         }
-                    } catch (Exception e) {
-                        LOGGER.error("Resource {} failed to process item entry '{}': {}", id.toString(), itemEntry, e.getMessage());
-                        continue;
-                    }
-                }
-                
-                // Check if we have any valid items to register
-                if (directItems.isEmpty() && itemTags.isEmpty()) {
-                    LOGGER.warn("Resource {} has no valid items after processing. Skipping registration.", id.toString());
-                    filesSkipped[0]++;
-                    return;
-                }
-                
-                // Check if we have any valid base materials
-                if (baseItems.isEmpty() && baseTags.isEmpty()) {
-                    LOGGER.warn("Resource {} has no valid base materials after processing. Skipping registration.", id.toString());
-                    filesSkipped[0]++;
-                    return;
-                }
-                
-                // Create the reforge definition
-                ReforgeBaseData baseData = new ReforgeBaseData(baseItems, baseTags);
-                ReforgeDefinition definition = new ReforgeDefinition(directItems, itemTags, baseData);
-                reforgeDefinitions.put(id, definition);
-                filesProcessed[0]++;
-                
-                LOGGER.debug("Loaded reforge definition from {}: {} direct items, {} item tags, {} base items, {} base tags", 
-                    id, directItems.size(), itemTags.size(), baseItems.size(), baseTags.size());
-                
-                // Also populate legacy maps for backward compatibility
-                // Expand tags at load time for the legacy system
-                List<Identifier> allItemIds = new ArrayList<>(directItems);
-                for (TagKey<Item> tag : itemTags) {
-                    List<Identifier> expandedIds = TagParsingHelper.expandItemTagToIds(tag);
-                    allItemIds.addAll(expandedIds);
-                    
-                    if (expandedIds.isEmpty()) {
-                        LOGGER.debug("Tag {} expanded to 0 items for legacy system in {}. Tags will still work at runtime.", tag.id(), id.toString());
+                        directItems.add(new Identifier(itemEntry));
                     }
+                } catch (Exception e) {
+                    LOGGER.error("Resource {} failed to process item entry '{}': {}", id.toString(), itemEntry, e.getMessage());
+                    continue;
                 }
-                
-                for (Identifier itemId : allItemIds) {
-                    reforgeIdentifiers.add(itemId);
-                    reforgeBaseMap.put(itemId, baseItems); // Keep for backward compatibility
-                    reforgeBaseDataMap.put(itemId, baseData);
-                }
-                
-            } catch (Exception e) {
-                LOGGER.error("Error occurred while loading resource {}. {}", id.toString(), e.toString());
-                filesSkipped[0]++;
             }
-        });
-        
-        // Log summary
-        LOGGER.info("Loaded {} reforge definitions ({} skipped) with {} tags using lazy evaluation", 
-            filesProcessed[0], filesSkipped[0], tagsLoaded[0]);
+            
+            // Check if we have any valid items to register
+            if (directItems.isEmpty() && itemTags.isEmpty()) {
+                LOGGER.warn("Resource {} has no valid items after processing. Skipping registration.", id.toString());
+                return null;
+            }
+            
+            // Check if we have any valid base materials
+            if (baseItems.isEmpty() && baseTags.isEmpty()) {
+                LOGGER.warn("Resource {} has no valid base materials after processing. Skipping registration.", id.toString());
+                return null;
+            }
+            
+            LOGGER.debug("Loaded reforge definition from {}: {} direct items, {} item tags, {} base items, {} base tags", 
+                id, directItems.size(), itemTags.size(), baseItems.size(), baseTags.size());
+
+            return new ReforgeDefinition(directItems, itemTags, new ReforgeBaseData(baseItems, baseTags));
+        } catch (Exception e) {
+            LOGGER.error("Error occurred while loading resource {}. {}", id.toString(), e.toString());
+            return null;
+        }
     }
 
-    public List<Item> getReforgeBaseItems(Item item) {
-        ArrayList<Item> list = new ArrayList<Item>();
-        if (reforgeBaseMap.containsKey(Registries.ITEM.getId(item))) {
-            return reforgeBaseMap.get(Registries.ITEM.getId(item));
+    private void loadReforgeData(Map<Identifier, ResourceHashCache.Entry<ReforgeDefinition>> prepared) {
+        ResourceHashCache.Summary summary = resourceCache.commit(prepared);
+
+        Map<Identifier, ReforgeDefinition> readDefinitions = new LinkedHashMap<>();
+        int filesSkipped = 0;
+        int tagsLoaded = 0;
+
+        for (Map.Entry<Identifier, ResourceHashCache.Entry<ReforgeDefinition>> entry : prepared.entrySet()) {
+            ReforgeDefinition definition = entry.getValue().getValue();
+            if (definition == null) {
+                filesSkipped++;
+                continue;
+            }
+            readDefinitions.put(entry.getKey(), definition);
+            tagsLoaded += definition.getItemTags().size() + definition.getBaseData().getTags().size();
         }
-        return list;
+        setReforgeDefinitions(readDefinitions);
+        
+        // Log summary
+        LOGGER.info("Loaded {} reforge definitions ({} skipped) with {} tags using lazy evaluation, files: {}", 
+            readDefinitions.size(), filesSkipped, tagsLoaded, summary);
     }
-    
+
     /**
-     * Get complete reforge base data including both direct items and tags
+     * Replaces all reforge definitions, e.g. after a reload or when they are synced from the server.
+     * The item index and legacy list are rebuilt on next use or once tags are bound.
+     *
+     * @param definitions definitions by their file identifier, in the order they should be checked
      */
-    public ReforgeBaseData getReforgeBaseData(Item item) {
-        if (reforgeBaseDataMap.containsKey(Registries.ITEM.getId(item))) {
-            return reforgeBaseDataMap.get(Registries.ITEM.getId(item));
-        }
-        return new ReforgeBaseData(new ArrayList<>(), new ArrayList<>());
+    public void setReforgeDefinitions(Map<Identifier, ReforgeDefinition> definitions) {
+        reforgeDefinitions = Collections.unmodifiableMap(new LinkedHashMap<>(definitions));
+        definitionsByRawId = null;
     }
 
-    public void putReforgeBaseItems(Identifier id, List<Item> items) {
-        reforgeBaseMap.put(id, items);
+    /**
+     * Get all reforge definitions by their file identifier
+     */
+    public Map<Identifier, ReforgeDefinition> getReforgeDefinitions() {
+        return reforgeDefinitions;
     }
 
-    public void clearReforgeBaseItems() {
-        reforgeBaseMap.clear();
-        reforgeBaseDataMap.clear();
+    /**
+     * Get the direct base items of the definition {@link #getReforgeDefinitionFor(Item)} picks for the item
+     */
+    public List<Item> getReforgeBaseItems(Item item) {
+        ReforgeDefinition definition = getReforgeDefinitionFor(item);
+        return definition != null ? definition.getBaseData().getDirectItems() : new ArrayList<Item>();
+    }
+    
+    /**
+     * Get complete reforge base data including both direct items and tags, from the definition {@link #getReforgeDefinitionFor(Item)}
+     * picks for the item
+     */
+    public ReforgeBaseData getReforgeBaseData(Item item) {
+        ReforgeDefinition definition = getReforgeDefinitionFor(item);
+        return definition != null ? definition.getBaseData() : new ReforgeBaseData(new ArrayList<>(), new ArrayList<>());
     }
 
     public List<Identifier> getReforgeIdentifiers() {
+        ensureIndex();
         return reforgeIdentifiers;
     }
     
@@ -312,24 +320,77 @@ public class ReforgeDataLoader implements IdentifiableResourceReloadListener {
      * Check if an item can be reforged (matches any reforge definition)
      */
     public boolean canReforge(Item item) {
-        for (ReforgeDefinition definition : reforgeDefinitions.values()) {
-            if (definition.matchesItem(item)) {
-                return true;
-            }
-        }
-        return false;
+        return getReforgeDefinitionFor(item) != null;
     }
     
     /**
      * Get reforge definition that matches the given item (null if none)
+     * <p>
+     * If several definitions match, a definition listing the item directly wins over one matching it through a tag,
+     * and otherwise the definition whose file identifier sorts first wins.
      */
     public ReforgeDefinition getReforgeDefinitionFor(Item item) {
-        for (ReforgeDefinition definition : reforgeDefinitions.values()) {
-            if (definition.matchesItem(item)) {
-                return definition;
+        ReforgeDefinition[] index = ensureIndex();
+        int rawId = Registries.ITEM.getRawId(item);
+        return rawId >= 0 && rawId < index.length ? index[rawId] : null;
+    }
+
+    private ReforgeDefinition[] ensureIndex() {
+        ReforgeDefinition[] index = definitionsByRawId;
+        if (index == null) {
+            index = rebuildReforgeIndex();
+        }
+        return index;
+    }
+
+    /**
+     * Rebuilds the item to definition index and the legacy list. Called once tags are bound, since definitions may match items through tags.
+     */
+    public synchronized ReforgeDefinition[] rebuildReforgeIndex() {
+        Map<Identifier, ReforgeDefinition> currentDefinitions = reforgeDefinitions;
+
+        int itemCount = Registries.ITEM.size();
+        ReforgeDefinition[] direct = new ReforgeDefinition[itemCount];
+        ReforgeDefinition[] tagged = new ReforgeDefinition[itemCount];
+
+        List<Map.Entry<Identifier, ReforgeDefinition>> definitions = new ArrayList<>(currentDefinitions.entrySet());
+        definitions.sort(Map.Entry.comparingByKey());
+        for (Map.Entry<Identifier, ReforgeDefinition> entry : definitions) {
+            ReforgeDefinition definition = entry.getValue();
+            for (Identifier itemId : definition.getDirectItems()) {
+                if (Registries.ITEM.containsId(itemId)) {
+                    setIfAbsent(direct, Registries.ITEM.getRawId(Registries.ITEM.get(itemId)), definition);
+                }
             }
+            for (TagKey<Item> tag : definition.getItemTags()) {
+                List<Item> items = TagParsingHelper.expandItemTag(tag);
+                if (items.isEmpty()) {
+                    LOGGER.debug("Tag {} expanded to 0 items in {}", tag.id(), entry.getKey());
+                }
+                for (Item item : items) {
+                    setIfAbsent(tagged, Registries.ITEM.getRawId(item), definition);
+                }
+            }
+        }
+
+        List<Identifier> readIdentifiers = new ArrayList<>();
+        for (int rawId = 0; rawId < itemCount; rawId++) {
+            if (direct[rawId] == null) {
+                direct[rawId] = tagged[rawId];
+            }
+            if (direct[rawId] != null) {
+                readIdentifiers.add(Registries.ITEM.getId(Registries.ITEM.get(rawId)));
+            }
+        }
+        reforgeIdentifiers = readIdentifiers;
+        definitionsByRawId = direct;
+        return direct;
+    }
+
+    private static void setIfAbsent(ReforgeDefinition[] index, int rawId, ReforgeDefinition definition) {
+        if (rawId >= 0 && rawId < index.length && index[rawId] == null) {
+            index[rawId] = definition;
         }
-        return null;
     }
 
 }
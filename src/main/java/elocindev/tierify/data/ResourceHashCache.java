@@ -0,0 +1,124 @@
+package elocindev.tierify.data;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+
+import net.minecraft.resource.Resource;
+import net.minecraft.util.Identifier;
+
+/**
+ * Remembers the content hash and parsed value of every file a loader read on its last reload.
+ * <p>
+ * On the next reload unchanged files hand back their previous value instead of being parsed again, and
+ * {@link #commit(Map)} reports which files were added, changed or removed.
+ */
+public class ResourceHashCache<T> {
+
+    private volatile Map<Identifier, Entry<T>> entries = Collections.emptyMap();
+
+    /**
+     * Reads a resource and returns its cached entry if the content did not change, or a freshly parsed one otherwise.
+     * Safe to call from several threads during the prepare phase.
+     *
+     * @param file   resource path
+     * @param resource resource to read
+     * @param parser parses the raw content, may return null for invalid files
+     * @return the entry for this file
+     */
+    public Entry<T> load(Identifier file, Resource resource, Parser<T> parser) throws IOException {
+        byte[] content;
+        try (InputStream stream = resource.getInputStream()) {
+            content = stream.readAllBytes();
+        }
+        HashCode hash = Hashing.murmur3_128().hashBytes(content);
+
+        Entry<T> cached = entries.get(file);
+        if (cached != null && cached.hash.equals(hash)) {
+            return cached;
+        }
+        return new Entry<>(hash, parser.parse(content));
+    }
+
+    /**
+     * Replaces the cached entries with the entries of the current reload.
+     *
+     * @param next entries by file, as returned from {@link #load}
+     * @return what changed compared to the previous reload
+     */
+    public Summary commit(Map<Identifier, Entry<T>> next) {
+        Map<Identifier, Entry<T>> previous = entries;
+        int added = 0;
+        int changed = 0;
+        int unchanged = 0;
+        for (Map.Entry<Identifier, Entry<T>> entry : next.entrySet()) {
+            Entry<T> old = previous.get(entry.getKey());
+            if (old == null) {
+                added++;
+            } else if (old == entry.getValue()) {
+                unchanged++;
+            } else {
+                changed++;
+            }
+        }
+        int removed = 0;
+        for (Identifier file : previous.keySet()) {
+            if (!next.containsKey(file)) {
+                removed++;
+            }
+        }
+        entries = Collections.unmodifiableMap(next);
+        return new Summary(added, changed, removed, unchanged);
+    }
+
+    public static class Entry<T> {
+        private final HashCode hash;
+        @Nullable
+        private final T value;
+
+        private Entry(HashCode hash, @Nullable T value) {
+            this.hash = hash;
+            this.value = value;
+        }
+
+        @Nullable
+        public T getValue() {
+            return value;
+        }
+    }
+
+    public static class Summary {
+        private final int added;
+        private final int changed;
+        private final int removed;
+        private final int unchanged;
+
+        private Summary(int added, int changed, int removed, int unchanged) {
+            this.added = added;
+            this.changed = changed;
+            this.removed = removed;
+            this.unchanged = unchanged;
+        }
+
+        public boolean hasChanges() {
+            return added > 0 || changed > 0 || removed > 0;
+        }
+
+        @Override
+        public String toString() {
+            return added + " added, " + changed + " changed, " + removed + " removed, " + unchanged + " unchanged";
+        }
+    }
+
+    @FunctionalInterface
+    public interface Parser<T> {
+        @Nullable
+        T parse(byte[] content);
+    }
+}
@@ -3,18 +3,22 @@ package elocindev.tierify.data;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.math.BigInteger;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.jetbrains.annotations.Nullable;
 
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
 
 import draylar.tiered.api.BorderTemplate;
-import elocindev.tierify.TierifyClient;
+import elocindev.tierify.Tierify;
 import net.fabricmc.fabric.api.resource.SimpleSynchronousResourceReloadListener;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
 import net.minecraft.resource.ResourceManager;
 import net.minecraft.util.Identifier;
 
@@ -22,34 +26,49 @@ public class TooltipBorderLoader implements SimpleSynchronousResourceReloadListe
 
     private static final Logger LOGGER = LogManager.getLogger("TieredZ");
 
+    // raw tier id as stored on stacks to the first template listing it
+    private static volatile Map<String, BorderTemplate> templatesByTier = Collections.emptyMap();
+
     @Override
     public Identifier getFabricId() {
         return new Identifier("tiered", "tooltip_loader");
     }
 
+    /**
+     * Returns the border template for the tier of the given stack, or null if it has no tier or the tier has no border.
+     */
+    @Nullable
+    public static BorderTemplate getBorderTemplate(ItemStack stack) {
+        NbtCompound tiered = stack.getSubNbt(Tierify.NBT_SUBTAG_KEY);
+        if (tiered == null) {
+            return null;
+        }
+        return templatesByTier.get(tiered.getString(Tierify.NBT_SUBTAG_DATA_KEY));
+    }
+
     @Override
     public void reload(ResourceManager resourceManager) {
+        Map<String, BorderTemplate> byTier = new HashMap<String, BorderTemplate>();
 
         resourceManager.findResources("tooltips", id -> id.getPath().endsWith(".json")).forEach((id, resourceRef) -> {
-            try {
-                InputStream stream = resourceRef.getInputStream();
+            try (InputStream stream = resourceRef.getInputStream()) {
                 JsonObject data = JsonParser.parseReader(new InputStreamReader(stream)).getAsJsonObject();
 
                 for (int u = 0; u < data.getAsJsonArray("tooltips").size(); u++) {
                     JsonObject data2 = (JsonObject) data.getAsJsonArray("tooltips").get(u);
-                    List<String> decider = new ArrayList<String>();
-
-                    for (int i = 0; i < data2.getAsJsonArray("decider").size(); i++)
-                        decider.add("{Tier:\"" + data2.getAsJsonArray("decider").get(i).getAsString() + "\"}");
-
-                    TierifyClient.BORDER_TEMPLATES.add(new BorderTemplate(data2.get("index").getAsInt(), data2.get("texture").getAsString(),
+                    BorderTemplate template = new BorderTemplate(data2.get("index").getAsInt(), data2.get("texture").getAsString(),
                             new BigInteger(data2.get("start_border_gradient").getAsString(), 16).intValue(), new BigInteger(data2.get("end_border_gradient").getAsString(), 16).intValue(),
-                            data2.has("background_gradient") ? new BigInteger(data2.get("background_gradient").getAsString(), 16).intValue() : -267386864, decider));
+                            data2.has("background_gradient") ? new BigInteger(data2.get("background_gradient").getAsString(), 16).intValue() : -267386864);
+                    for (int i = 0; i < data2.getAsJsonArray("decider").size(); i++) {
+                        byTier.putIfAbsent(data2.getAsJsonArray("decider").get(i).getAsString(), template);
+                    }
                 }
             } catch (Exception e) {
                 LOGGER.error("Error occurred while loading resource {}. {}", id.toString(), e.toString());
             }
         });
+
+        templatesByTier = byTier;
     }
 
 }
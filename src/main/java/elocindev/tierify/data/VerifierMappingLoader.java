@@ -2,20 +2,32 @@ package elocindev.tierify.data;
 
 import com.google.common.collect.Maps;
 import com.google.gson.*;
+
+import draylar.tiered.api.ItemVerifier;
 import net.fabricmc.fabric.api.resource.IdentifiableResourceReloadListener;
-import net.minecraft.resource.JsonDataLoader;
+import net.minecraft.resource.Resource;
+import net.minecraft.resource.ResourceFinder;
 import net.minecraft.resource.ResourceManager;
+import net.minecraft.resource.ResourceReloader;
 import net.minecraft.util.Identifier;
 import net.minecraft.util.profiler.Profiler;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 /**
  * Loads verifier mapping files from data/&lt;namespace&gt;/verifier_mappings/*.json
@@ -34,119 +46,160 @@ import java.util.Map;
  *   ]
  * }
  */
-public class VerifierMappingLoader extends JsonDataLoader implements IdentifiableResourceReloadListener {
+public class VerifierMappingLoader implements IdentifiableResourceReloadListener {
     
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().disableHtmlEscaping().create();
     private static final String PARSING_ERROR_MESSAGE = "Parsing error loading verifier mapping {}";
     private static final Logger LOGGER = LogManager.getLogger();
+    private static final ResourceFinder FINDER = ResourceFinder.json("verifier_mappings");
     
     // Maps base verifier string (e.g., "c:swords") to its mapping definition
     private Map<String, VerifierMapping> verifierMappings = new HashMap<>();
-    
-    public VerifierMappingLoader() {
-        super(GSON, "verifier_mappings");
-    }
+
+    // parsed files of the last reload, so unchanged files are not parsed again
+    private final ResourceHashCache<VerifierMapping> resourceCache = new ResourceHashCache<>();
     
     @Override
     public Collection<Identifier> getFabricDependencies() {
         // Depend on tags being loaded first
         return Collections.singletonList(new Identifier("minecraft", "tags"));
     }
-    
+
     @Override
-    protected void apply(Map<Identifier, JsonElement> loader, ResourceManager manager, Profiler profiler) {
-        Map<String, VerifierMapping> readMappings = Maps.newHashMap();
-        
-        int filesProcessed = 0;
-        int filesSkipped = 0;
-        int totalMappedVerifiers = 0;
-        
-        for (Map.Entry<Identifier, JsonElement> entry : loader.entrySet()) {
-            Identifier identifier = entry.getKey();
-            
+    public CompletableFuture<Void> reload(ResourceReloader.Synchronizer synchronizer, ResourceManager resourceManager,
+                                          Profiler prepareProfiler, Profiler applyProfiler,
+                                          Executor prepareExecutor, Executor applyExecutor) {
+        return CompletableFuture.supplyAsync(() -> {
+            prepareProfiler.startTick();
+            prepareProfiler.push("verifier_mappings");
+            Map<Identifier, ResourceHashCache.Entry<VerifierMapping>> prepared = prepare(resourceManager);
+            prepareProfiler.pop();
+            prepareProfiler.endTick();
+            return prepared;
+        }, prepareExecutor).thenCompose(synchronizer::whenPrepared).thenAcceptAsync(prepared -> {
+            applyProfiler.startTick();
+            applyProfiler.push("verifier_mappings");
+            apply(prepared);
+            applyProfiler.pop();
+            applyProfiler.endTick();
+        }, applyExecutor);
+    }
+
+    // reads every mapping file, files whose content did not change since the last reload keep their parsed mapping
+    private Map<Identifier, ResourceHashCache.Entry<VerifierMapping>> prepare(ResourceManager manager) {
+        Map<Identifier, ResourceHashCache.Entry<VerifierMapping>> entries = new TreeMap<>();
+        for (Map.Entry<Identifier, Resource> entry : FINDER.findResources(manager).entrySet()) {
+            Identifier file = entry.getKey();
+            Identifier identifier = FINDER.toResourceId(file);
             try {
-                JsonObject json = entry.getValue().getAsJsonObject();
+                entries.put(file, resourceCache.load(file, entry.getValue(), content -> parse(identifier, content)));
+            } catch (IOException exception) {
+                LOGGER.error(PARSING_ERROR_MESSAGE, identifier, exception);
+            }
+        }
+        return entries;
+    }
+
+    private static VerifierMapping parse(Identifier identifier, byte[] content) {
+        try (Reader reader = new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8)) {
+            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+            
+            // Validate required fields exist
+            if (!json.has("base_verifier") || json.get("base_verifier").isJsonNull()) {
+                LOGGER.error("Verifier mapping {} is missing required 'base_verifier' field", identifier);
+                return null;
+            }
+            if (!json.has("base_verifier_type") || json.get("base_verifier_type").isJsonNull()) {
+                LOGGER.error("Verifier mapping {} is missing required 'base_verifier_type' field", identifier);
+                return null;
+            }
+            if (!json.has("mapped_verifiers") || !json.get("mapped_verifiers").isJsonArray()) {
+                LOGGER.error("Verifier mapping {} is missing required 'mapped_verifiers' array field", identifier);
+                return null;
+            }
+            
+            // Parse base verifier
+            String baseVerifier = json.get("base_verifier").getAsString();
+            String baseVerifierType = json.get("base_verifier_type").getAsString();
+            
+            // Parse mapped verifiers
+            List<VerifierMapping.MappedVerifier> mappedVerifiers = new ArrayList<>();
+            JsonArray mappedArray = json.getAsJsonArray("mapped_verifiers");
+            
+            for (JsonElement element : mappedArray) {
+                JsonObject mappedObj = element.getAsJsonObject();
                 
-                // Validate required fields exist
-                if (!json.has("base_verifier") || json.get("base_verifier").isJsonNull()) {
-                    LOGGER.error("Verifier mapping {} is missing required 'base_verifier' field", identifier);
-                    filesSkipped++;
-                    continue;
-                }
-                if (!json.has("base_verifier_type") || json.get("base_verifier_type").isJsonNull()) {
-                    LOGGER.error("Verifier mapping {} is missing required 'base_verifier_type' field", identifier);
-                    filesSkipped++;
+                // Validate mapped verifier fields
+                if (!mappedObj.has("verifier") || mappedObj.get("verifier").isJsonNull()) {
+                    LOGGER.debug("Verifier mapping {} has mapped_verifier entry missing 'verifier' field, skipping", identifier);
                     continue;
                 }
-                if (!json.has("mapped_verifiers") || !json.get("mapped_verifiers").isJsonArray()) {
-                    LOGGER.error("Verifier mapping {} is missing required 'mapped_verifiers' array field", identifier);
-                    filesSkipped++;
+                if (!mappedObj.has("type") || mappedObj.get("type").isJsonNull()) {
+                    LOGGER.debug("Verifier mapping {} has mapped_verifier entry missing 'type' field, skipping", identifier);
                     continue;
                 }
                 
-                // Parse base verifier
-                String baseVerifier = json.get("base_verifier").getAsString();
-                String baseVerifierType = json.get("base_verifier_type").getAsString();
+                String verifier = mappedObj.get("verifier").getAsString();
+                String type = mappedObj.get("type").getAsString();
                 
-                // Parse mapped verifiers
-                List<VerifierMapping.MappedVerifier> mappedVerifiers = new ArrayList<>();
-                JsonArray mappedArray = json.getAsJsonArray("mapped_verifiers");
-                
-                for (JsonElement element : mappedArray) {
-                    JsonObject mappedObj = element.getAsJsonObject();
-                    
-                    // Validate mapped verifier fields
-                    if (!mappedObj.has("verifier") || mappedObj.get("verifier").isJsonNull()) {
-                        LOGGER.debug("Verifier mapping {} has mapped_verifier entry missing 'verifier' field, skipping", identifier);
-                        continue;
-                    }
-                    if (!mappedObj.has("type") || mappedObj.get("type").isJsonNull()) {
-                        LOGGER.debug("Verifier mapping {} has mapped_verifier entry missing 'type' field, skipping", identifier);
-                        continue;
-                    }
-                    
-                    String verifier = mappedObj.get("verifier").getAsString();
-                    String type = mappedObj.get("type").getAsString();
-                    
-                    mappedVerifiers.add(new VerifierMapping.MappedVerifier(verifier, type));
-                }
-                
-                if (mappedVerifiers.isEmpty()) {
-                    LOGGER.warn("Verifier mapping {} has no valid mapped verifiers after processing, skipping", identifier);
-                    filesSkipped++;
-                    continue;
-                }
-                
-                VerifierMapping mapping = new VerifierMapping(baseVerifier, baseVerifierType, mappedVerifiers);
-                
-                // Store by base verifier for easy lookup
-                // If multiple mappings exist for the same base, merge them
-                if (readMappings.containsKey(baseVerifier)) {
-                    VerifierMapping existing = readMappings.get(baseVerifier);
-                    List<VerifierMapping.MappedVerifier> combined = new ArrayList<>(existing.getMappedVerifiers());
-                    combined.addAll(mappedVerifiers);
-                    mapping = new VerifierMapping(baseVerifier, baseVerifierType, combined);
-                    LOGGER.debug("Merged verifier mapping for {}: {} total mapped verifiers", baseVerifier, combined.size());
-                } else {
-                    LOGGER.debug("Loaded verifier mapping: {} -> {} mapped verifiers", baseVerifier, mappedVerifiers.size());
-                }
-                
-                readMappings.put(baseVerifier, mapping);
-                filesProcessed++;
-                totalMappedVerifiers += mappedVerifiers.size();
-                
-            } catch (IllegalArgumentException | JsonParseException exception) {
-                LOGGER.error(PARSING_ERROR_MESSAGE, identifier, exception);
-                filesSkipped++;
-            } catch (Exception exception) {
-                LOGGER.error("Unexpected error loading verifier mapping {}: {}", identifier, exception.getMessage());
+                mappedVerifiers.add(new VerifierMapping.MappedVerifier(verifier, type));
+            }
+            
+            if (mappedVerifiers.isEmpty()) {
+                LOGGER.warn("Verifier mapping {} has no valid mapped verifiers after processing, skipping", identifier);
+                return null;
+            }
+            
+            return new VerifierMapping(baseVerifier, baseVerifierType, mappedVerifiers);
+        } catch (IllegalArgumentException | IllegalStateException | JsonParseException exception) {
+            LOGGER.error(PARSING_ERROR_MESSAGE, identifier, exception);
+            return null;
+        } catch (Exception exception) {
+            LOGGER.error("Unexpected error loading verifier mapping {}: {}", identifier, exception.getMessage());
+            return null;
+        }
+    }
+    
+    private void apply(Map<Identifier, ResourceHashCache.Entry<VerifierMapping>> prepared) {
+        ResourceHashCache.Summary summary = resourceCache.commit(prepared);
+        Map<String, VerifierMapping> readMappings = Maps.newHashMap();
+        
+        int filesProcessed = 0;
+        int filesSkipped = 0;
+        int totalMappedVerifiers = 0;
+        
+        for (ResourceHashCache.Entry<VerifierMapping> entry : prepared.values()) {
+            VerifierMapping mapping = entry.getValue();
+            if (mapping == null) {
                 filesSkipped++;
+                continue;
             }
+            String baseVerifier = mapping.getBaseVerifier();
+            List<VerifierMapping.MappedVerifier> mappedVerifiers = mapping.getMappedVerifiers();
+            
+            // Store by base verifier for easy lookup
+            // If multiple mappings exist for the same base, merge them
+            if (readMappings.containsKey(baseVerifier)) {
+                VerifierMapping existing = readMappings.get(baseVerifier);
+                List<VerifierMapping.MappedVerifier> combined = new ArrayList<>(existing.getMappedVerifiers());
+                combined.addAll(mappedVerifiers);
+                mapping = new VerifierMapping(baseVerifier, mapping.getBaseVerifierType(), combined);
+                LOGGER.debug("Merged verifier mapping for {}: {} total mapped verifiers", baseVerifier, combined.size());
+            } else {
+                LOGGER.debug("Loaded verifier mapping: {} -> {} mapped verifiers", baseVerifier, mappedVerifiers.size());
+            }
+            
+            readMappings.put(baseVerifier, mapping);
+            filesProcessed++;
+            totalMappedVerifiers += mappedVerifiers.size();
         }
         
         verifierMappings = readMappings;
-        LOGGER.info("Loaded {} verifier mappings ({} skipped) with {} total mapped verifiers", 
-            filesProcessed, filesSkipped, totalMappedVerifiers);
+        // resolved verifiers only go stale if a mapping actually changed
+        if (summary.hasChanges()) {
+            ItemVerifier.invalidateCache();
+        }
+        LOGGER.info("Loaded {} verifier mappings ({} skipped) with {} total mapped verifiers, files: {}", 
+            filesProcessed, filesSkipped, totalMappedVerifiers, summary);
     }
     
     /**
@@ -13,6 +13,13 @@ public class EquipmentSlotDeserializer implements JsonDeserializer<EquipmentSlot
 
     @Override
     public EquipmentSlot deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
-        return EquipmentSlot.byName(json.getAsString().toLowerCase(Locale.ROOT));
+        String name = json.getAsString().toLowerCase(Locale.ROOT);
+        for (EquipmentSlot slot : EquipmentSlot.values()) {
+            if (slot.getName().equals(name)) {
+                return slot;
+            }
+        }
+        // unknown slots are dropped and reported by AttributeValidation instead of failing the whole file
+        return null;
     }
 }
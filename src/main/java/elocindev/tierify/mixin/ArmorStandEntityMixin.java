@@ -9,14 +9,17 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import draylar.tiered.api.ModifierUtils;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.util.TieredRandom;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.decoration.ArmorStandEntity;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.world.ServerWorld;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.Vec3d;
+import net.minecraft.util.math.random.Random;
 
 @Mixin(ArmorStandEntity.class)
 public abstract class ArmorStandEntityMixin {
@@ -45,7 +48,9 @@ public abstract class ArmorStandEntityMixin {
     @Inject(method = "equipStack", at = @At("HEAD"))
     private void equipStackMixin(EquipmentSlot slot, ItemStack stack, CallbackInfo info) {
         if (!this.isClient && this.isGenerated && Tierify.CONFIG.lootContainerModifier) {
-            ModifierUtils.setItemStackAttribute(null, stack, false);
+            ArmorStandEntity armorStand = (ArmorStandEntity) (Object) this;
+            Random random = TieredRandom.forPosition(armorStand.getWorld() instanceof ServerWorld serverWorld ? serverWorld : null, armorStand.getBlockPos(), armorStand.getRandom());
+            ModifierUtils.setGeneratedItemStackAttribute(stack, random);
         }
     }
 
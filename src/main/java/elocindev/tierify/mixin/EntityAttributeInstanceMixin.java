@@ -0,0 +1,76 @@
+package elocindev.tierify.mixin;
+
+import java.util.Set;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.Shadow;
+import org.spongepowered.asm.mixin.Unique;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
+
+import elocindev.tierify.access.EntityAttributeInstanceAccess;
+import net.minecraft.entity.attribute.EntityAttributeInstance;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+
+/**
+ * Caches the aggregated modifiers read by {@link elocindev.tierify.util.AttributeHelper}. The applied modifiers are folded into
+ * {@code value * scale + offset}, which keeps the order the modifiers were added in, and recomputed after any modifier change.
+ */
+@Mixin(EntityAttributeInstance.class)
+public abstract class EntityAttributeInstanceMixin implements EntityAttributeInstanceAccess {
+
+    @Unique
+    private boolean modifiersCached = false;
+    @Unique
+    private float modifierSum;
+    @Unique
+    private double modifierScale;
+    @Unique
+    private double modifierOffset;
+
+    @Inject(method = "onUpdate", at = @At("HEAD"))
+    private void onUpdateMixin(CallbackInfo info) {
+        this.modifiersCached = false;
+    }
+
+    @Override
+    public float getModifierSum() {
+        cacheModifiers();
+        return this.modifierSum;
+    }
+
+    @Override
+    public float applyModifiers(float value) {
+        cacheModifiers();
+        return (float) (value * this.modifierScale + this.modifierOffset);
+    }
+
+    @Unique
+    private void cacheModifiers() {
+        if (this.modifiersCached) {
+            return;
+        }
+        float sum = 0.0f;
+        double scale = 1.0D;
+        double offset = 0.0D;
+        for (EntityAttributeModifier modifier : getModifiers()) {
+            float amount = (float) modifier.getValue();
+            sum += amount;
+            if (modifier.getOperation() == EntityAttributeModifier.Operation.ADDITION) {
+                offset += amount;
+            } else {
+                scale *= amount + 1.0f;
+                offset *= amount + 1.0f;
+            }
+        }
+        this.modifierSum = sum;
+        this.modifierScale = scale;
+        this.modifierOffset = offset;
+        this.modifiersCached = true;
+    }
+
+    @Shadow
+    public abstract Set<EntityAttributeModifier> getModifiers();
+
+}
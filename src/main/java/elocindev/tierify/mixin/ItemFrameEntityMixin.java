@@ -7,10 +7,13 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
 import draylar.tiered.api.ModifierUtils;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.util.TieredRandom;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.decoration.AbstractDecorationEntity;
 import net.minecraft.entity.decoration.ItemFrameEntity;
 import net.minecraft.item.ItemStack;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.random.Random;
 import net.minecraft.world.World;
 
 @Mixin(ItemFrameEntity.class)
@@ -23,7 +26,8 @@ public abstract class ItemFrameEntityMixin extends AbstractDecorationEntity {
     @Inject(method = "Lnet/minecraft/entity/decoration/ItemFrameEntity;setHeldItemStack(Lnet/minecraft/item/ItemStack;Z)V", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/decoration/ItemFrameEntity;setAsStackHolder(Lnet/minecraft/item/ItemStack;)V"))
     private void setHeldItemStackMixin(ItemStack value, boolean update, CallbackInfo info) {
         if (!this.getWorld().isClient() && !update && Tierify.CONFIG.lootContainerModifier) {
-            ModifierUtils.setItemStackAttribute(null, value, false);
+            Random random = TieredRandom.forPosition((ServerWorld) this.getWorld(), this.getBlockPos(), this.getRandom());
+            ModifierUtils.setGeneratedItemStackAttribute(value, random);
         }
     }
 }
@@ -1,14 +1,20 @@
 package elocindev.tierify.mixin;
 
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.world.World;
 
 import org.spongepowered.asm.mixin.Mixin;
 import org.spongepowered.asm.mixin.Shadow;
 import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
+import draylar.tiered.api.ModifierUtils;
+
 @Mixin(ItemStack.class)
 public abstract class ItemStackMixin {
 
@@ -18,6 +24,14 @@ public abstract class ItemStackMixin {
     @Shadow
     public abstract boolean hasNbt();
 
+    // deferred rolls happen the first time the stack ticks in a player inventory, which includes armor and offhand slots
+    @Inject(method = "inventoryTick", at = @At("HEAD"))
+    private void inventoryTickMixin(World world, Entity entity, int slot, boolean selected, CallbackInfo info) {
+        if (!world.isClient() && entity instanceof PlayerEntity player && ModifierUtils.hasPendingAttribute((ItemStack) (Object) this)) {
+            ModifierUtils.rollPendingAttribute(player, (ItemStack) (Object) this);
+        }
+    }
+
     @Inject(method = "getMaxDamage", at = @At("TAIL"), cancellable = true)
     private void getMaxDamageMixin(CallbackInfoReturnable<Integer> info) {
         if (hasNbt() && getNbt().contains("durable")) {
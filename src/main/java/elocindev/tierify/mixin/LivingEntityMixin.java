@@ -4,14 +4,11 @@ import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityType;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.LivingEntity;
-import net.minecraft.entity.attribute.EntityAttributeModifier;
 import net.minecraft.entity.data.TrackedData;
 import net.minecraft.item.ItemStack;
-import net.minecraft.nbt.NbtCompound;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.world.World;
 
-import java.util.Iterator;
 import java.util.Map;
 
 import org.spongepowered.asm.mixin.Final;
@@ -25,7 +22,9 @@ import org.spongepowered.asm.mixin.injection.At.Shift;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
+import draylar.tiered.api.ModifierUtils;
 import elocindev.tierify.network.TieredServerPacket;
+import elocindev.tierify.util.TieredMetrics;
 
 @SuppressWarnings("rawtypes")
 @Mixin(LivingEntity.class)
@@ -51,35 +50,16 @@ public abstract class LivingEntityMixin extends Entity {
     @Inject(method = "getEquipmentChanges", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/attribute/AttributeContainer;removeModifiers(Lcom/google/common/collect/Multimap;)V", shift = Shift.AFTER), locals = LocalCapture.CAPTURE_FAILHARD)
     private void getEquipmentChangesMixin(CallbackInfoReturnable<Map<EquipmentSlot, ItemStack>> info, Map map, EquipmentSlot var2[], int var3, int var4, EquipmentSlot equipmentSlot,
             ItemStack itemStack) {
-        Iterator<EntityAttributeModifier> iterator = itemStack.getAttributeModifiers(equipmentSlot).values().iterator();
-        while (iterator.hasNext())
-            if (iterator.next().getName().contains("tiered:")) {
-                if ((Object) this instanceof ServerPlayerEntity) {
-                    boolean syncHealth = getEquippedStack(equipmentSlot).isEmpty();
-                    if (!syncHealth) {
-                        ItemStack newItemStack = getEquippedStack(equipmentSlot);
-                        if (!itemStack.isOf(newItemStack.getItem())) {
-                            syncHealth = true;
-                        }
-                        if (!syncHealth) {
-                            NbtCompound oldNbt = itemStack.getNbt().copy();
-                            oldNbt.remove("Damage");
-                            oldNbt.remove("iced");
-                            NbtCompound newNbt = newItemStack.getNbt().copy();
-                            newNbt.remove("Damage");
-                            newNbt.remove("iced");
-                            if (!oldNbt.equals(newNbt)) {
-                                syncHealth = true;
-                            }
-                        }
-                    }
-                    if (syncHealth) {
-                        this.setHealth(this.getHealth() > this.getMaxHealth() ? this.getMaxHealth() : this.getHealth());
-                        TieredServerPacket.writeS2CHealthPacket((ServerPlayerEntity) (Object) this);
-                    }
-                }
-                break;
-            }
+        if (!((Object) this instanceof ServerPlayerEntity)) {
+            return;
+        }
+        long start = TieredMetrics.start();
+        // health only needs a resync if the removed stack had tier modifiers which the new stack does not share
+        if (ModifierUtils.hasTierModifiers(itemStack, equipmentSlot) && !ModifierUtils.hasSameTier(itemStack, getEquippedStack(equipmentSlot))) {
+            this.setHealth(this.getHealth() > this.getMaxHealth() ? this.getMaxHealth() : this.getHealth());
+            TieredServerPacket.markHealthDirty((ServerPlayerEntity) (Object) this);
+        }
+        TieredMetrics.EQUIPMENT_CHANGES.stop(start);
     }
 
     @Shadow
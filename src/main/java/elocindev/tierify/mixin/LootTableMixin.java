@@ -11,6 +11,8 @@ import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
 import draylar.tiered.api.ModifierUtils;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.util.TieredMetrics;
+import elocindev.tierify.util.TieredRandom;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectListIterator;
 import net.minecraft.inventory.Inventory;
@@ -28,14 +30,18 @@ public class LootTableMixin {
     @Inject(method = "method_331", at = @At(value = "INVOKE", target = "Ljava/util/function/Consumer;accept(Ljava/lang/Object;)V", ordinal = 0))
     private static void processStacksMixin(ServerWorld world, Consumer<ItemStack> lootConsumer, ItemStack itemStack, CallbackInfo info) {
         if (!world.isClient() && Tierify.CONFIG.lootContainerModifier) {
-            ModifierUtils.setItemStackAttribute(null, itemStack, false);
+            long start = TieredMetrics.start();
+            ModifierUtils.setGeneratedItemStackAttribute(itemStack, TieredRandom.get());
+            TieredMetrics.LOOT_TABLE.stop(start);
         }
     }
 
     @Inject(method = "method_331", at = @At(value = "INVOKE", target = "Ljava/util/function/Consumer;accept(Ljava/lang/Object;)V", ordinal = 1), locals = LocalCapture.CAPTURE_FAILSOFT)
     private static void processStacksMixin(ServerWorld world, Consumer<ItemStack> lootConsumer, ItemStack itemStack, CallbackInfo info, int i, ItemStack itemStack2) {
         if (!world.isClient() && Tierify.CONFIG.lootContainerModifier) {
-            ModifierUtils.setItemStackAttribute(null, itemStack2, false);
+            long start = TieredMetrics.start();
+            ModifierUtils.setGeneratedItemStackAttribute(itemStack2, TieredRandom.get());
+            TieredMetrics.LOOT_TABLE.stop(start);
         }
     }
 
@@ -43,7 +49,10 @@ public class LootTableMixin {
     private void supplyInventoryMixin(Inventory inventory, LootContextParameterSet parameters, long seed, CallbackInfo info, LootContext lootContext, ObjectArrayList<ItemStack> objectArrayList,
             Random random, List<Integer> list, ObjectListIterator<ItemStack> var9, ItemStack itemStack) {
         if (!lootContext.getWorld().isClient() && Tierify.CONFIG.lootContainerModifier) {
-            ModifierUtils.setItemStackAttribute(null, itemStack, false);
+            // the loot context random is seeded from the loot table seed, which keeps chest rolls reproducible
+            long start = TieredMetrics.start();
+            ModifierUtils.setGeneratedItemStackAttribute(itemStack, random);
+            TieredMetrics.LOOT_TABLE.stop(start);
         }
     }
 }
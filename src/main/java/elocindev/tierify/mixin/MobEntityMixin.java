@@ -9,12 +9,15 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import draylar.tiered.api.ModifierUtils;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.util.TieredMetrics;
+import elocindev.tierify.util.TieredRandom;
 import net.minecraft.entity.EntityData;
 import net.minecraft.entity.EquipmentSlot;
 import net.minecraft.entity.SpawnReason;
 import net.minecraft.entity.mob.MobEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.NbtCompound;
+import net.minecraft.util.math.random.Random;
 import net.minecraft.world.LocalDifficulty;
 import net.minecraft.world.ServerWorldAccess;
 
@@ -25,13 +28,16 @@ public class MobEntityMixin {
     private void initializeMixin(ServerWorldAccess world, LocalDifficulty difficulty, SpawnReason spawnReason, @Nullable EntityData entityData, @Nullable NbtCompound entityNbt,
             CallbackInfoReturnable<EntityData> info) {
         if (Tierify.CONFIG.entityItemModifier) {
+            long start = TieredMetrics.start();
+            Random random = TieredRandom.forPosition(world.toServerWorld(), ((MobEntity) (Object) this).getBlockPos(), ((MobEntity) (Object) this).getRandom());
             for (EquipmentSlot equipmentSlot : EquipmentSlot.values()) {
                 ItemStack itemStack = this.getEquippedStack(equipmentSlot);
                 if (itemStack.isEmpty()) {
                     continue;
                 }
-                ModifierUtils.setItemStackAttribute(null, itemStack, false);
+                ModifierUtils.setGeneratedItemStackAttribute(itemStack, random);
             }
+            TieredMetrics.MOB_EQUIPMENT.stop(start);
         }
     }
 
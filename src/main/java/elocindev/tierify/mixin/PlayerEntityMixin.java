@@ -14,6 +14,7 @@ import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
 
 import draylar.tiered.api.CustomEntityAttributes;
 import elocindev.tierify.util.AttributeHelper;
+import elocindev.tierify.util.TieredMetrics;
 
 @Mixin(PlayerEntity.class)
 public abstract class PlayerEntityMixin extends LivingEntity {
@@ -32,11 +33,20 @@ public abstract class PlayerEntityMixin extends LivingEntity {
 
     @ModifyVariable(method = "getBlockBreakingSpeed", at = @At(value = "INVOKE", target = "Lnet/minecraft/entity/effect/StatusEffectUtil;hasHaste(Lnet/minecraft/entity/LivingEntity;)Z"), index = 2)
     private float getBlockBreakingSpeedMixin(float f) {
-        return AttributeHelper.getExtraDigSpeed((PlayerEntity) (Object) this, f);
+        long start = TieredMetrics.startOnServerThread();
+        float speed = AttributeHelper.getExtraDigSpeed((PlayerEntity) (Object) this, f);
+        TieredMetrics.DIG_SPEED.stop(start);
+        return speed;
     }
 
     @ModifyVariable(method = "attack", at = @At(value = "JUMP", ordinal = 2), slice = @Slice(from = @At(value = "INVOKE", target = "Lnet/minecraft/entity/player/PlayerEntity;isSprinting()Z", ordinal = 1)), index = 8)
     private boolean attackMixin(boolean bl3) {
-        return bl3 || AttributeHelper.shouldMeeleCrit((PlayerEntity) (Object) this);
+        if (bl3) {
+            return true;
+        }
+        long start = TieredMetrics.startOnServerThread();
+        boolean crit = AttributeHelper.shouldMeeleCrit((PlayerEntity) (Object) this);
+        TieredMetrics.MELEE_CRIT.stop(start);
+        return crit;
     }
 }
\ No newline at end of file
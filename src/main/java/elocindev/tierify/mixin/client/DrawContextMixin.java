@@ -11,8 +11,9 @@ import org.spongepowered.asm.mixin.injection.At;
 import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 
-import elocindev.tierify.TierifyClient;
+import draylar.tiered.api.BorderTemplate;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.data.TooltipBorderLoader;
 import elocindev.tierify.util.TieredTooltip;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -37,22 +38,17 @@ public class DrawContextMixin {
     @Inject(method = "drawItemTooltip", at = @At("HEAD"), cancellable = true)
     private void drawItemTooltipMixin(TextRenderer textRenderer, ItemStack stack, int x, int y, CallbackInfo info) {
 
-        if (Tierify.CLIENT_CONFIG.tieredTooltip && stack.hasNbt() && stack.getNbt().contains("Tiered")) {
-            String nbtString = stack.getNbt().getCompound("Tiered").asString();
-            for (int i = 0; i < TierifyClient.BORDER_TEMPLATES.size(); i++) {
-                if (!TierifyClient.BORDER_TEMPLATES.get(i).containsStack(stack) && TierifyClient.BORDER_TEMPLATES.get(i).containsDecider(nbtString)) {
-                    TierifyClient.BORDER_TEMPLATES.get(i).addStack(stack);
-                } else if (TierifyClient.BORDER_TEMPLATES.get(i).containsStack(stack)) {
-                    List<Text> text = Screen.getTooltipFromItem(client, stack);
+        if (Tierify.CLIENT_CONFIG.tieredTooltip) {
+            BorderTemplate borderTemplate = TooltipBorderLoader.getBorderTemplate(stack);
+            if (borderTemplate != null) {
+                List<Text> text = Screen.getTooltipFromItem(client, stack);
 
-                    List<TooltipComponent> list = text.stream().map(Text::asOrderedText).map(TooltipComponent::of).collect(Collectors.toList());
-                    stack.getTooltipData().ifPresent(data -> list.add(1, TooltipComponent.of(data)));
+                List<TooltipComponent> list = text.stream().map(Text::asOrderedText).map(TooltipComponent::of).collect(Collectors.toList());
+                stack.getTooltipData().ifPresent(data -> list.add(1, TooltipComponent.of(data)));
 
-                    TieredTooltip.renderTieredTooltipFromComponents((DrawContext) (Object) this, textRenderer, list, x, y, HoveredTooltipPositioner.INSTANCE, TierifyClient.BORDER_TEMPLATES.get(i));
+                TieredTooltip.renderTieredTooltipFromComponents((DrawContext) (Object) this, textRenderer, list, x, y, HoveredTooltipPositioner.INSTANCE, borderTemplate);
 
-                    info.cancel();
-                    break;
-                }
+                info.cancel();
             }
         }
     }
@@ -9,8 +9,9 @@ import org.spongepowered.asm.mixin.injection.Inject;
 import org.spongepowered.asm.mixin.injection.callback.CallbackInfo;
 import org.spongepowered.asm.mixin.injection.callback.LocalCapture;
 
-import elocindev.tierify.TierifyClient;
+import draylar.tiered.api.BorderTemplate;
 import elocindev.tierify.Tierify;
+import elocindev.tierify.data.TooltipBorderLoader;
 import elocindev.tierify.util.TieredTooltip;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
@@ -32,23 +33,17 @@ public abstract class HandledScreenMixin extends Screen {
 
     @Inject(method = "drawMouseoverTooltip", at = @At(value = "INVOKE", target = "Lnet/minecraft/client/gui/DrawContext;drawTooltip(Lnet/minecraft/client/font/TextRenderer;Ljava/util/List;Ljava/util/Optional;II)V"), cancellable = true, locals = LocalCapture.CAPTURE_FAILSOFT)
     protected void drawMouseoverTooltipMixin(DrawContext context, int x, int y, CallbackInfo info, ItemStack stack) {
-        if (Tierify.CLIENT_CONFIG.tieredTooltip && stack.hasNbt() && stack.getNbt().contains("Tiered")) {
+        if (Tierify.CLIENT_CONFIG.tieredTooltip) {
+            BorderTemplate borderTemplate = TooltipBorderLoader.getBorderTemplate(stack);
+            if (borderTemplate != null) {
+                List<Text> text = Screen.getTooltipFromItem(client, stack);
 
-            String nbtString = stack.getNbt().getCompound("Tiered").asString();
-            for (int i = 0; i < TierifyClient.BORDER_TEMPLATES.size(); i++) {
-                if (!TierifyClient.BORDER_TEMPLATES.get(i).containsStack(stack) && TierifyClient.BORDER_TEMPLATES.get(i).containsDecider(nbtString)) {
-                    TierifyClient.BORDER_TEMPLATES.get(i).addStack(stack);
-                } else if (TierifyClient.BORDER_TEMPLATES.get(i).containsStack(stack)) {
-                    List<Text> text = Screen.getTooltipFromItem(client, stack);
+                List<TooltipComponent> list = text.stream().map(Text::asOrderedText).map(TooltipComponent::of).collect(Collectors.toList());
+                stack.getTooltipData().ifPresent(data -> list.add(1, TooltipComponent.of(data)));
 
-                    List<TooltipComponent> list = text.stream().map(Text::asOrderedText).map(TooltipComponent::of).collect(Collectors.toList());
-                    stack.getTooltipData().ifPresent(data -> list.add(1, TooltipComponent.of(data)));
+                TieredTooltip.renderTieredTooltipFromComponents(context, this.textRenderer, list, x, y, HoveredTooltipPositioner.INSTANCE, borderTemplate);
 
-                    TieredTooltip.renderTieredTooltipFromComponents(context, this.textRenderer, list, x, y, HoveredTooltipPositioner.INSTANCE, TierifyClient.BORDER_TEMPLATES.get(i));
-
-                    info.cancel();
-                    break;
-                }
+                info.cancel();
             }
         }
     }
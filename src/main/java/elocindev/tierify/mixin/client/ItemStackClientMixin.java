@@ -4,9 +4,11 @@ import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Multimap;
 import com.llamalad7.mixinextras.injector.ModifyExpressionValue;
 
+import draylar.tiered.api.ModifierUtils;
 import draylar.tiered.api.PotentialAttribute;
 import elocindev.tierify.Tierify;
 import elocindev.tierify.util.TieredTooltip;
+import elocindev.tierify.util.TooltipCache;
 import net.fabricmc.api.EnvType;
 import net.fabricmc.api.Environment;
 import net.minecraft.client.item.TooltipContext;
@@ -20,7 +22,6 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.text.MutableText;
 import net.minecraft.text.Text;
 import net.minecraft.util.Formatting;
-import net.minecraft.util.Identifier;
 
 import org.spongepowered.asm.mixin.Final;
 import org.spongepowered.asm.mixin.Mixin;
@@ -65,6 +66,14 @@ public abstract class ItemStackClientMixin {
     private Map<String, ArrayList> map = new HashMap<>();
     private boolean toughnessZero = false;
 
+    @Inject(method = "getTooltip", at = @At("HEAD"), cancellable = true)
+    private void getCachedTooltipMixin(PlayerEntity player, TooltipContext context, CallbackInfoReturnable<List<Text>> info) {
+        List<Text> cached = TooltipCache.lookup((ItemStack) (Object) this, player, context);
+        if (cached != null) {
+            info.setReturnValue(cached);
+        }
+    }
+
     @Inject(method = "getTooltip", at = @At(value = "INVOKE", target = "Ljava/util/List;add(Ljava/lang/Object;)Z", ordinal = 6), locals = LocalCapture.CAPTURE_FAILHARD)
     private void storeTooltipInformation(PlayerEntity player, TooltipContext context, CallbackInfoReturnable<List> info, List list, MutableText mutableText, int i, EquipmentSlot var6[], int var7,
             int var8, EquipmentSlot equipmentSlot, Multimap<EntityAttribute, EntityAttributeModifier> multimap) {
@@ -162,8 +171,7 @@ public abstract class ItemStackClientMixin {
     @Redirect(method = "getTooltip", at = @At(value = "INVOKE", target = "Lnet/minecraft/text/MutableText;formatted(Lnet/minecraft/util/Formatting;)Lnet/minecraft/text/MutableText;", ordinal = 2))
     private MutableText getFormatting(MutableText text, Formatting formatting) {
         if (this.hasNbt() && this.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null && isTiered) {
-            Identifier tier = new Identifier(this.getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).getString(Tierify.NBT_SUBTAG_DATA_KEY));
-            PotentialAttribute attribute = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier);
+            PotentialAttribute attribute = ModifierUtils.getAttribute((ItemStack) (Object) this);
             return text.setStyle(attribute.getStyle());
         } else {
             return text.formatted(formatting);
@@ -190,10 +198,8 @@ public abstract class ItemStackClientMixin {
     @Inject(method = "getName", at = @At("RETURN"), cancellable = true)
     private void getNameMixin(CallbackInfoReturnable<Text> info) {
         if (this.hasNbt() && this.getSubNbt("display") == null && this.getSubNbt(Tierify.NBT_SUBTAG_KEY) != null) {
-            Identifier tier = new Identifier(getOrCreateSubNbt(Tierify.NBT_SUBTAG_KEY).getString(Tierify.NBT_SUBTAG_DATA_KEY));
-
             // attempt to display attribute if it is valid
-            PotentialAttribute potentialAttribute = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributes().get(tier);
+            PotentialAttribute potentialAttribute = ModifierUtils.getAttribute((ItemStack) (Object) this);
 
             if (potentialAttribute != null) {
                 MutableText text = Text.translatable(potentialAttribute.getID() + ".label");
@@ -0,0 +1,27 @@
+package elocindev.tierify.mixin.client;
+
+import java.util.List;
+
+import org.spongepowered.asm.mixin.Mixin;
+import org.spongepowered.asm.mixin.injection.At;
+import org.spongepowered.asm.mixin.injection.Inject;
+import org.spongepowered.asm.mixin.injection.callback.CallbackInfoReturnable;
+
+import elocindev.tierify.util.TooltipCache;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.item.TooltipContext;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.text.Text;
+
+// applied after other mixins, so its return callback sees the lines every other getTooltip injection added
+@Environment(EnvType.CLIENT)
+@Mixin(value = ItemStack.class, priority = 10000)
+public class ItemStackTooltipCacheMixin {
+
+    @Inject(method = "getTooltip", at = @At("RETURN"))
+    private void storeCachedTooltipMixin(PlayerEntity player, TooltipContext context, CallbackInfoReturnable<List<Text>> info) {
+        TooltipCache.store((ItemStack) (Object) this, info.getReturnValue());
+    }
+}
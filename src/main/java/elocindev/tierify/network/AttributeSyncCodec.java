@@ -0,0 +1,255 @@
+package elocindev.tierify.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import com.google.common.hash.Hashing;
+
+import draylar.tiered.api.AttributeTemplate;
+import draylar.tiered.api.ItemVerifier;
+import draylar.tiered.api.PotentialAttribute;
+import elocindev.tierify.data.AttributeDataLoader;
+import io.netty.buffer.Unpooled;
+import net.minecraft.entity.EquipmentSlot;
+import net.minecraft.entity.attribute.EntityAttributeModifier;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.text.Style;
+import net.minecraft.util.Identifier;
+
+/**
+ * Binary format of the attribute sync packet.
+ * <p>
+ * Every string goes into a table that is written once up front, so repeated ids, attribute types, modifier names and styles are
+ * only sent once. Numbers are varints, equipment slots a bitmask and operations their ordinal. The encoded payload is cached
+ * per attribute map, so it is built once per reload and not per join.
+ */
+public class AttributeSyncCodec {
+
+    private static final int VERSION = 2;
+
+    private static final int NBT_STRING = 0;
+    private static final int NBT_BOOLEAN = 1;
+    private static final int NBT_DOUBLE = 2;
+    // lists and maps are rare and never applied to stacks, they are sent as json
+    private static final int NBT_JSON = 3;
+
+    private static Map<Identifier, PotentialAttribute> payloadAttributes = null;
+    private static Payload payload = null;
+
+    /**
+     * Returns the encoded payload for the given attributes, encoding them only if they changed since the last call.
+     */
+    public static synchronized Payload getPayload(Map<Identifier, PotentialAttribute> itemAttributes) {
+        if (payload == null || payloadAttributes != itemAttributes) {
+            payload = new Payload(encode(itemAttributes));
+            payloadAttributes = itemAttributes;
+        }
+        return payload;
+    }
+
+    public static byte[] encode(Map<Identifier, PotentialAttribute> itemAttributes) {
+        StringTable strings = new StringTable();
+        PacketByteBuf body = new PacketByteBuf(Unpooled.buffer());
+
+        body.writeVarInt(itemAttributes.size());
+        itemAttributes.forEach((id, attribute) -> {
+            body.writeVarInt(strings.indexOf(id.toString()));
+            body.writeVarInt(strings.indexOf(attribute.getID()));
+            body.writeVarInt(attribute.getWeight());
+            body.writeVarInt(strings.indexOf(attribute.getStyle() == null ? null : AttributeDataLoader.GSON.toJson(attribute.getStyle(), Style.class)));
+            body.writeVarInt(strings.indexOf(attribute.getQuality()));
+
+            List<ItemVerifier> verifiers = attribute.getVerifiers() == null ? List.of() : attribute.getVerifiers();
+            body.writeVarInt(verifiers.size());
+            for (ItemVerifier verifier : verifiers) {
+                body.writeVarInt(strings.indexOf(verifier.getId()));
+                body.writeVarInt(strings.indexOf(verifier.getTag()));
+            }
+
+            List<AttributeTemplate> templates = attribute.getAttributes() == null ? List.of() : attribute.getAttributes();
+            body.writeVarInt(templates.size());
+            for (AttributeTemplate template : templates) {
+                body.writeVarInt(strings.indexOf(template.getAttributeTypeID()));
+                EntityAttributeModifier modifier = template.getEntityAttributeModifier();
+                body.writeVarInt(strings.indexOf(modifier == null ? null : modifier.getName()));
+                if (modifier != null) {
+                    body.writeDouble(modifier.getValue());
+                    body.writeVarInt(modifier.getOperation().ordinal());
+                }
+                body.writeVarInt(writeSlots(template.getRequiredEquipmentSlots()));
+                body.writeVarInt(writeSlots(template.getOptionalEquipmentSlots()));
+            }
+
+            Map<String, Object> nbtValues = attribute.getNbtValues();
+            body.writeVarInt(nbtValues == null ? 0 : nbtValues.size() + 1);
+            if (nbtValues != null) {
+                nbtValues.forEach((key, value) -> {
+                    body.writeVarInt(strings.indexOf(key));
+                    if (value instanceof String string) {
+                        body.writeByte(NBT_STRING);
+                        body.writeVarInt(strings.indexOf(string));
+                    } else if (value instanceof Boolean bool) {
+                        body.writeByte(NBT_BOOLEAN);
+                        body.writeBoolean(bool);
+                    } else if (value instanceof Double number) {
+                        body.writeByte(NBT_DOUBLE);
+                        body.writeDouble(number);
+                    } else {
+                        body.writeByte(NBT_JSON);
+                        body.writeVarInt(strings.indexOf(AttributeDataLoader.GSON.toJson(value)));
+                    }
+                });
+            }
+        });
+
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        buf.writeVarInt(VERSION);
+        buf.writeVarInt(strings.values.size());
+        for (String string : strings.values) {
+            buf.writeString(string);
+        }
+        buf.writeBytes(body);
+
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    public static Map<Identifier, PotentialAttribute> decode(PacketByteBuf buf) {
+        int version = buf.readVarInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported attribute sync version " + version);
+        }
+        String[] strings = new String[buf.readVarInt() + 1];
+        for (int i = 1; i < strings.length; i++) {
+            strings[i] = buf.readString();
+        }
+
+        int size = buf.readVarInt();
+        Map<Identifier, PotentialAttribute> itemAttributes = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            Identifier key = new Identifier(strings[buf.readVarInt()]);
+            String id = strings[buf.readVarInt()];
+            int weight = buf.readVarInt();
+            String styleJson = strings[buf.readVarInt()];
+            Style style = styleJson == null ? null : AttributeDataLoader.GSON.fromJson(styleJson, Style.class);
+            String quality = strings[buf.readVarInt()];
+
+            int verifierCount = buf.readVarInt();
+            List<ItemVerifier> verifiers = new ArrayList<>(verifierCount);
+            for (int u = 0; u < verifierCount; u++) {
+                verifiers.add(new ItemVerifier(strings[buf.readVarInt()], strings[buf.readVarInt()]));
+            }
+
+            int templateCount = buf.readVarInt();
+            List<AttributeTemplate> templates = new ArrayList<>(templateCount);
+            for (int u = 0; u < templateCount; u++) {
+                String type = strings[buf.readVarInt()];
+                String modifierName = strings[buf.readVarInt()];
+                EntityAttributeModifier modifier = null;
+                if (modifierName != null) {
+                    double amount = buf.readDouble();
+                    modifier = new EntityAttributeModifier(modifierName, amount, EntityAttributeModifier.Operation.values()[buf.readVarInt()]);
+                }
+                EquipmentSlot[] required = readSlots(buf.readVarInt());
+                EquipmentSlot[] optional = readSlots(buf.readVarInt());
+                templates.add(new AttributeTemplate(type, modifier, required, optional));
+            }
+
+            int nbtSize = buf.readVarInt();
+            HashMap<String, Object> nbtValues = null;
+            if (nbtSize > 0) {
+                nbtValues = new HashMap<>(nbtSize - 1);
+                for (int u = 0; u < nbtSize - 1; u++) {
+                    String nbtKey = strings[buf.readVarInt()];
+                    switch (buf.readByte()) {
+                        case NBT_STRING -> nbtValues.put(nbtKey, strings[buf.readVarInt()]);
+                        case NBT_BOOLEAN -> nbtValues.put(nbtKey, buf.readBoolean());
+                        case NBT_DOUBLE -> nbtValues.put(nbtKey, buf.readDouble());
+                        default -> nbtValues.put(nbtKey, AttributeDataLoader.GSON.fromJson(strings[buf.readVarInt()], Object.class));
+                    }
+                }
+            }
+
+            itemAttributes.put(key, new PotentialAttribute(id, verifiers, weight, style, templates, nbtValues, quality));
+        }
+        return itemAttributes;
+    }
+
+    // 0 for no array, otherwise the slot bitmask plus one
+    private static int writeSlots(@Nullable EquipmentSlot[] slots) {
+        if (slots == null) {
+            return 0;
+        }
+        int mask = 0;
+        for (EquipmentSlot slot : slots) {
+            mask |= 1 << slot.ordinal();
+        }
+        return mask + 1;
+    }
+
+    @Nullable
+    private static EquipmentSlot[] readSlots(int value) {
+        if (value == 0) {
+            return null;
+        }
+        int mask = value - 1;
+        List<EquipmentSlot> slots = new ArrayList<>();
+        for (EquipmentSlot slot : EquipmentSlot.values()) {
+            if ((mask & (1 << slot.ordinal())) != 0) {
+                slots.add(slot);
+            }
+        }
+        return slots.toArray(new EquipmentSlot[0]);
+    }
+
+    /**
+     * Encoded attributes together with their content hash.
+     */
+    public static class Payload {
+        private final byte[] bytes;
+        private final byte[] hash;
+
+        private Payload(byte[] bytes) {
+            this.bytes = bytes;
+            this.hash = Hashing.murmur3_128().hashBytes(bytes).asBytes();
+        }
+
+        public byte[] getHash() {
+            return hash;
+        }
+
+        /**
+         * Creates a sync packet. Without attributes it only offers the hash, so clients with an equal cached copy can skip the transfer.
+         */
+        public PacketByteBuf createPacket(boolean withAttributes) {
+            PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+            buf.writeByteArray(hash);
+            buf.writeBoolean(withAttributes);
+            if (withAttributes) {
+                buf.writeBytes(bytes);
+            }
+            return buf;
+        }
+    }
+
+    // index 0 is reserved for null
+    private static class StringTable {
+        private final Map<String, Integer> indices = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        private int indexOf(@Nullable String value) {
+            if (value == null) {
+                return 0;
+            }
+            return indices.computeIfAbsent(value, key -> {
+                values.add(key);
+                return values.size();
+            });
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package elocindev.tierify.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import elocindev.tierify.data.ReforgeDataLoader.ReforgeBaseData;
+import elocindev.tierify.data.ReforgeDataLoader.ReforgeDefinition;
+import elocindev.tierify.util.TagParsingHelper;
+import io.netty.buffer.Unpooled;
+import net.minecraft.item.Item;
+import net.minecraft.network.PacketByteBuf;
+import net.minecraft.registry.Registries;
+import net.minecraft.registry.tag.TagKey;
+import net.minecraft.util.Identifier;
+
+/**
+ * Binary format of the reforge item sync packets.
+ * <p>
+ * Definitions are sent as they were loaded, with their item tags unexpanded. Base lists shared by several definitions are written
+ * once and referenced by index, items are varint raw ids. The encoded payload is cached per definition map and split into
+ * chunks that each fit into a single custom payload packet.
+ */
+public class ReforgeSyncCodec {
+
+    private static final int VERSION = 1;
+    // leaves room for the chunk header below the 1 MiB clientbound custom payload limit
+    private static final int MAX_CHUNK_SIZE = 1000000;
+
+    private static Map<Identifier, ReforgeDefinition> payloadDefinitions = null;
+    private static List<PacketByteBuf> payload = null;
+
+    // client side reassembly
+    private static PacketByteBuf receiving = null;
+
+    /**
+     * Returns the chunk packets for the given definitions, encoding them only if they changed since the last call.
+     */
+    public static synchronized List<PacketByteBuf> getPackets(Map<Identifier, ReforgeDefinition> definitions) {
+        if (payload == null || payloadDefinitions != definitions) {
+            payload = split(encode(definitions));
+            payloadDefinitions = definitions;
+        }
+        // every send gets its own copy, the cached chunks are never read
+        List<PacketByteBuf> packets = new ArrayList<>(payload.size());
+        for (PacketByteBuf chunk : payload) {
+            packets.add(new PacketByteBuf(chunk.copy()));
+        }
+        return packets;
+    }
+
+    public static byte[] encode(Map<Identifier, ReforgeDefinition> definitions) {
+        // deduplicate base lists by content
+        Map<List<Object>, Integer> baseIndices = new HashMap<>();
+        List<ReforgeBaseData> bases = new ArrayList<>();
+        int[] definitionBases = new int[definitions.size()];
+        int definitionIndex = 0;
+        for (ReforgeDefinition definition : definitions.values()) {
+            ReforgeBaseData baseData = definition.getBaseData();
+            List<Object> key = Arrays.asList(baseData.getDirectItems(), baseData.getTags());
+            Integer index = baseIndices.get(key);
+            if (index == null) {
+                index = bases.size();
+                baseIndices.put(key, index);
+                bases.add(baseData);
+            }
+            definitionBases[definitionIndex++] = index;
+        }
+
+        PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
+        buf.writeVarInt(VERSION);
+        buf.writeVarInt(bases.size());
+        for (ReforgeBaseData baseData : bases) {
+            buf.writeVarInt(baseData.getDirectItems().size());
+            for (Item item : baseData.getDirectItems()) {
+                buf.writeVarInt(Registries.ITEM.getRawId(item));
+            }
+            writeTags(buf, baseData.getTags());
+        }
+
+        buf.writeVarInt(definitions.size());
+        definitionIndex = 0;
+        for (Map.Entry<Identifier, ReforgeDefinition> entry : definitions.entrySet()) {
+            ReforgeDefinition definition = entry.getValue();
+            buf.writeIdentifier(entry.getKey());
+            buf.writeVarInt(definitionBases[definitionIndex++]);
+            buf.writeVarInt(definition.getDirectItems().size());
+            for (Identifier itemId : definition.getDirectItems()) {
+                buf.writeVarInt(Registries.ITEM.getRawId(Registries.ITEM.get(itemId)));
+            }
+            writeTags(buf, definition.getItemTags());
+        }
+
+        byte[] bytes = new byte[buf.readableBytes()];
+        buf.readBytes(bytes);
+        return bytes;
+    }
+
+    public static Map<Identifier, ReforgeDefinition> decode(PacketByteBuf buf) {
+        int version = buf.readVarInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported reforge item sync version " + version);
+        }
+        ReforgeBaseData[] bases = new ReforgeBaseData[buf.readVarInt()];
+        for (int i = 0; i < bases.length; i++) {
+            int itemCount = buf.readVarInt();
+            List<Item> items = new ArrayList<>(itemCount);
+            for (int u = 0; u < itemCount; u++) {
+                items.add(Registries.ITEM.get(buf.readVarInt()));
+            }
+            bases[i] = new ReforgeBaseData(items, readTags(buf));
+        }
+
+        int definitionCount = buf.readVarInt();
+        Map<Identifier, ReforgeDefinition> definitions = new LinkedHashMap<>();
+        for (int i = 0; i < definitionCount; i++) {
+            Identifier id = buf.readIdentifier();
+            ReforgeBaseData baseData = bases[buf.readVarInt()];
+            int itemCount = buf.readVarInt();
+            List<Identifier> items = new ArrayList<>(itemCount);
+            for (int u = 0; u < itemCount; u++) {
+                items.add(Registries.ITEM.getId(Registries.ITEM.get(buf.readVarInt())));
+            }
+            definitions.put(id, new ReforgeDefinition(items, readTags(buf), baseData));
+        }
+        return definitions;
+    }
+
+    /**
+     * Collects one received chunk.
+     *
+     * @return the decoded definitions once the last chunk arrived, null while chunks are missing
+     */
+    public static Map<Identifier, ReforgeDefinition> receive(PacketByteBuf packet) {
+        int index = packet.readVarInt();
+        int count = packet.readVarInt();
+        if (index == 0) {
+            receiving = new PacketByteBuf(Unpooled.buffer());
+        } else if (receiving == null) {
+            // joined in the middle of a transfer, wait for the next one
+            return null;
+        }
+        receiving.writeBytes(packet.readByteArray());
+        if (index < count - 1) {
+            return null;
+        }
+        PacketByteBuf complete = receiving;
+        receiving = null;
+        return decode(complete);
+    }
+
+    private static List<PacketByteBuf> split(byte[] bytes) {
+        int count = Math.max(1, (bytes.length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        List<PacketByteBuf> packets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = i * MAX_CHUNK_SIZE;
+            PacketByteBuf packet = new PacketByteBuf(Unpooled.buffer());
+            packet.writeVarInt(i);
+            packet.writeVarInt(count);
+            packet.writeByteArray(Arrays.copyOfRange(bytes, from, Math.min(bytes.length, from + MAX_CHUNK_SIZE)));
+            packets.add(packet);
+        }
+        return packets;
+    }
+
+    private static void writeTags(PacketByteBuf buf, List<TagKey<Item>> tags) {
+        buf.writeVarInt(tags.size());
+        for (TagKey<Item> tag : tags) {
+            buf.writeIdentifier(tag.id());
+        }
+    }
+
+    private static List<TagKey<Item>> readTags(PacketByteBuf buf) {
+        int count = buf.readVarInt();
+        List<TagKey<Item>> tags = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tags.add(TagParsingHelper.createItemTagFromId(buf.readIdentifier().toString()));
+        }
+        return tags;
+    }
+}
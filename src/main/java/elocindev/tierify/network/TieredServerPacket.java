@@ -1,8 +1,11 @@
 package elocindev.tierify.network;
 
+import java.util.Set;
+
 import elocindev.tierify.access.AnvilScreenHandlerAccess;
 import elocindev.tierify.screen.ReforgeScreenHandler;
 import io.netty.buffer.Unpooled;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
 import net.fabricmc.fabric.api.networking.v1.ServerPlayNetworking;
 import net.libz.network.LibzServerPacket;
 import net.minecraft.network.PacketByteBuf;
@@ -10,6 +13,7 @@ import net.minecraft.network.packet.s2c.play.CustomPayloadS2CPacket;
 import net.minecraft.screen.AnvilScreenHandler;
 import net.minecraft.screen.ScreenHandlerContext;
 import net.minecraft.screen.SimpleNamedScreenHandlerFactory;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.network.ServerPlayerEntity;
 import net.minecraft.text.Text;
 import net.minecraft.util.Identifier;
@@ -22,6 +26,11 @@ public class TieredServerPacket {
     public static final Identifier REFORGE = new Identifier("tiered", "reforge");
     public static final Identifier HEALTH = new Identifier("tiered", "health");
 
+    // only touched on the server thread
+    private static final Set<ServerPlayerEntity> PENDING_HEALTH_SYNC = new ReferenceOpenHashSet<>();
+    private static long healthSyncRequests = 0L;
+    private static long healthSyncPackets = 0L;
+
     public static void init() {
         ServerPlayNetworking.registerGlobalReceiver(SET_SCREEN, (server, player, handler, buffer, sender) -> {
             int mouseX = buffer.readInt();
@@ -52,6 +61,47 @@ public class TieredServerPacket {
         });
     }
 
+    /**
+     * Marks the player's health for syncing at the end of the tick, so several equipment changes in one tick send a single packet.
+     */
+    public static void markHealthDirty(ServerPlayerEntity serverPlayerEntity) {
+        healthSyncRequests++;
+        PENDING_HEALTH_SYNC.add(serverPlayerEntity);
+    }
+
+    /**
+     * Sends one health packet per marked player. Called at the end of every server tick.
+     */
+    public static void flushHealthSync(MinecraftServer server) {
+        if (PENDING_HEALTH_SYNC.isEmpty()) {
+            return;
+        }
+        for (ServerPlayerEntity serverPlayerEntity : PENDING_HEALTH_SYNC) {
+            if (!serverPlayerEntity.isDisconnected()) {
+                writeS2CHealthPacket(serverPlayerEntity);
+                healthSyncPackets++;
+            }
+        }
+        PENDING_HEALTH_SYNC.clear();
+    }
+
+    public static void clearHealthSync() {
+        PENDING_HEALTH_SYNC.clear();
+    }
+
+    public static long getHealthSyncRequests() {
+        return healthSyncRequests;
+    }
+
+    public static long getHealthSyncPackets() {
+        return healthSyncPackets;
+    }
+
+    public static void resetHealthSyncCounters() {
+        healthSyncRequests = 0L;
+        healthSyncPackets = 0L;
+    }
+
     public static void writeS2CHealthPacket(ServerPlayerEntity serverPlayerEntity) {
         PacketByteBuf buf = new PacketByteBuf(Unpooled.buffer());
         buf.writeFloat(serverPlayerEntity.getHealth());
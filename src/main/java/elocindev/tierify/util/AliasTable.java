@@ -0,0 +1,109 @@
+package elocindev.tierify.util;
+
+import java.util.Arrays;
+
+/**
+ * Walker/Vose alias table for constant time weighted sampling.
+ * <p>
+ * Built once from a fixed set of weights, after which every draw takes one uniform value and does no allocation.
+ */
+public class AliasTable {
+
+    public static final AliasTable EMPTY = new AliasTable(new int[0], new int[0]);
+
+    private final int[] values;
+    private final double[] probability;
+    private final int[] alias;
+    private final long totalWeight;
+
+    /**
+     * @param values  value returned for each entry, usually an index into a candidate array
+     * @param weights weight of each entry, entries with a weight of 0 or less are left out
+     */
+    public AliasTable(int[] values, int[] weights) {
+        // drop entries that can never be drawn so they cannot end up in the leftover columns
+        int size = 0;
+        long total = 0;
+        int[] positiveValues = new int[values.length];
+        int[] positiveWeights = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (weights[i] > 0) {
+                positiveValues[size] = values[i];
+                positiveWeights[size] = weights[i];
+                total += weights[i];
+                size++;
+            }
+        }
+        this.values = Arrays.copyOf(positiveValues, size);
+        this.probability = new double[size];
+        this.alias = new int[size];
+        this.totalWeight = total;
+        if (size == 0) {
+            return;
+        }
+
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+
+        for (int i = 0; i < size; i++) {
+            scaled[i] = (double) positiveWeights[i] * size / total;
+            if (scaled[i] < 1.0D) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0D;
+            if (scaled[more] < 1.0D) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // whatever is left over is only off by rounding error
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1.0D;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1.0D;
+        }
+    }
+
+    /**
+     * Draws a value using a single uniform number.
+     *
+     * @param uniform number in [0, 1)
+     * @return the drawn value, or -1 if this table has no positive weights
+     */
+    public int sample(double uniform) {
+        if (totalWeight == 0) {
+            return -1;
+        }
+        double scaled = uniform * values.length;
+        int column = Math.min((int) scaled, values.length - 1);
+        return scaled - column < probability[column] ? values[column] : values[alias[column]];
+    }
+
+    public long getTotalWeight() {
+        return totalWeight;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public boolean isEmpty() {
+        return totalWeight == 0;
+    }
+}
@@ -1,20 +1,20 @@
 package elocindev.tierify.util;
 
 import draylar.tiered.api.CustomEntityAttributes;
+import elocindev.tierify.access.EntityAttributeInstanceAccess;
 import net.minecraft.entity.attribute.EntityAttributeInstance;
-import net.minecraft.entity.attribute.EntityAttributeModifier;
 import net.minecraft.entity.player.PlayerEntity;
 
+/**
+ * Reads the custom attributes. The aggregated modifier values are cached on the attribute instance until its modifiers change, see
+ * {@link EntityAttributeInstanceAccess}.
+ */
 public class AttributeHelper {
 
     public static boolean shouldMeeleCrit(PlayerEntity playerEntity) {
         EntityAttributeInstance instance = playerEntity.getAttributeInstance(CustomEntityAttributes.CRIT_CHANCE);
         if (instance != null) {
-            float critChance = 0.0f;
-            for (EntityAttributeModifier modifier : instance.getModifiers()) {
-                float amount = (float) modifier.getValue();
-                critChance += amount;
-            }
+            float critChance = ((EntityAttributeInstanceAccess) instance).getModifierSum();
             return playerEntity.getRandom().nextDouble() < critChance;
         }
         return false;
@@ -23,35 +23,15 @@ public class AttributeHelper {
     public static float getExtraDigSpeed(PlayerEntity playerEntity, float oldDigSpeed) {
         EntityAttributeInstance instance = playerEntity.getAttributeInstance(CustomEntityAttributes.DIG_SPEED);
         if (instance != null) {
-            float extraDigSpeed = oldDigSpeed;
-            for (EntityAttributeModifier modifier : instance.getModifiers()) {
-                float amount = (float) modifier.getValue();
-
-                if (modifier.getOperation() == EntityAttributeModifier.Operation.ADDITION) {
-                    extraDigSpeed += amount;
-                } else {
-                    extraDigSpeed *= (amount + 1);
-                }
-            }
-            return extraDigSpeed;
+            return ((EntityAttributeInstanceAccess) instance).applyModifiers(oldDigSpeed);
         }
-
         return oldDigSpeed;
     }
 
     public static float getExtraRangeDamage(PlayerEntity playerEntity, float oldDamage) {
         EntityAttributeInstance instance = playerEntity.getAttributeInstance(CustomEntityAttributes.RANGE_ATTACK_DAMAGE);
         if (instance != null) {
-            float rangeDamage = oldDamage;
-            for (EntityAttributeModifier modifier : instance.getModifiers()) {
-                float amount = (float) modifier.getValue();
-
-                if (modifier.getOperation() == EntityAttributeModifier.Operation.ADDITION) {
-                    rangeDamage += amount;
-                } else {
-                    rangeDamage *= (amount + 1.0f);
-                }
-            }
+            float rangeDamage = ((EntityAttributeInstanceAccess) instance).applyModifiers(oldDamage);
             return Math.min(rangeDamage, Integer.MAX_VALUE);
         }
         return oldDamage;
@@ -60,10 +40,7 @@ public class AttributeHelper {
     public static float getExtraCritDamage(PlayerEntity playerEntity, float oldDamage) {
         EntityAttributeInstance instance = playerEntity.getAttributeInstance(CustomEntityAttributes.CRIT_CHANCE);
         if (instance != null) {
-            float customChance = 0.0f;
-            for (EntityAttributeModifier modifier : instance.getModifiers()) {
-                customChance += (float) modifier.getValue();
-            }
+            float customChance = ((EntityAttributeInstanceAccess) instance).getModifierSum();
             if (playerEntity.getWorld().getRandom().nextFloat() > (1.0f - Math.abs(customChance))) {
                 float extraCrit = oldDamage;
                 if (customChance < 0.0f) {
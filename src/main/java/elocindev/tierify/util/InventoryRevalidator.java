@@ -0,0 +1,138 @@
+package elocindev.tierify.util;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.jetbrains.annotations.Nullable;
+
+import draylar.tiered.api.ModifierUtils;
+import elocindev.tierify.Tierify;
+import elocindev.tierify.data.ItemAttributeIndex;
+import net.minecraft.entity.player.PlayerInventory;
+import net.minecraft.item.ItemStack;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.server.network.ServerPlayerEntity;
+import net.minecraft.util.Identifier;
+
+/**
+ * Brings tiered stacks in player inventories up to date after a datapack reload.
+ * <p>
+ * A stack is only touched if its tier was removed, its tier file changed or the tier is no longer valid for the item.
+ * Online players are queued on reload and worked off on the server thread, at most
+ * {@code revalidationSlotsPerTick} inventory slots per tick. Players that are offline by then are updated on join instead.
+ */
+public class InventoryRevalidator {
+
+    private static final Deque<UUID> PENDING_PLAYERS = new ArrayDeque<>();
+    private static Set<Identifier> changedTierIds = Collections.emptySet();
+    @Nullable
+    private static UUID currentPlayer = null;
+    private static int nextSlot = 0;
+
+    private static int ticks = 0;
+    private static int updatedStacks = 0;
+
+    /**
+     * Queues every online player for revalidation. An unfinished earlier run is restarted with both sets of changed tiers.
+     *
+     * @param server         server that finished reloading
+     * @param changedTierIds tiers the reload removed or changed
+     */
+    public static void schedule(MinecraftServer server, Set<Identifier> changedTierIds) {
+        Set<Identifier> merged = new HashSet<>(InventoryRevalidator.changedTierIds);
+        merged.addAll(changedTierIds);
+        InventoryRevalidator.changedTierIds = merged;
+
+        PENDING_PLAYERS.clear();
+        for (ServerPlayerEntity player : server.getPlayerManager().getPlayerList()) {
+            PENDING_PLAYERS.add(player.getUuid());
+        }
+        currentPlayer = null;
+        nextSlot = 0;
+        ticks = 0;
+        updatedStacks = 0;
+    }
+
+    /**
+     * Works off queued inventories within the per tick budget. Called at the end of every server tick.
+     */
+    public static void tick(MinecraftServer server) {
+        if (currentPlayer == null && PENDING_PLAYERS.isEmpty()) {
+            return;
+        }
+        ticks++;
+        int budget = Math.max(1, Tierify.CONFIG.revalidationSlotsPerTick);
+        while (budget > 0) {
+            if (currentPlayer == null) {
+                currentPlayer = PENDING_PLAYERS.poll();
+                nextSlot = 0;
+                if (currentPlayer == null) {
+                    Tierify.LOGGER.info("Revalidated tiered items after reload in {} ticks, {} stacks updated", ticks, updatedStacks);
+                    changedTierIds = Collections.emptySet();
+                    return;
+                }
+            }
+            ServerPlayerEntity player = server.getPlayerManager().getPlayer(currentPlayer);
+            if (player == null) {
+                // left in the meantime, gets revalidated on join
+                currentPlayer = null;
+                continue;
+            }
+            PlayerInventory inventory = player.getInventory();
+            while (budget > 0 && nextSlot < inventory.size()) {
+                if (revalidate(inventory.getStack(nextSlot), changedTierIds)) {
+                    updatedStacks++;
+                }
+                nextSlot++;
+                budget--;
+            }
+            if (nextSlot >= inventory.size()) {
+                currentPlayer = null;
+            }
+        }
+    }
+
+    /**
+     * Drops any queued work, e.g. when the server stops.
+     */
+    public static void clear() {
+        PENDING_PLAYERS.clear();
+        changedTierIds = Collections.emptySet();
+        currentPlayer = null;
+        nextSlot = 0;
+    }
+
+    /**
+     * Updates a single stack. Tiers that are gone or no longer valid for the item are rerolled, changed tiers get their nbt values
+     * reapplied and every other stack is left alone.
+     *
+     * @param itemStack      stack to check
+     * @param changedTierIds tiers whose data changed, or null to treat every tier as changed
+     * @return true if the stack was modified
+     */
+    public static boolean revalidate(ItemStack itemStack, @Nullable Set<Identifier> changedTierIds) {
+        if (itemStack.isEmpty() || itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) == null) {
+            return false;
+        }
+        ItemAttributeIndex.Candidates candidates = Tierify.ATTRIBUTE_DATA_LOADER.getItemAttributeIndex().get(itemStack.getItem());
+        if (candidates.isEmpty()) {
+            return false;
+        }
+
+        Identifier attributeID = ModifierUtils.getAttributeID(itemStack);
+        if (attributeID != null && candidates.indexOf(attributeID) >= 0) {
+            if (changedTierIds != null && !changedTierIds.contains(attributeID)) {
+                return false;
+            }
+        } else {
+            ModifierUtils.removeItemStackAttribute(itemStack);
+            attributeID = ModifierUtils.getRandomAttributeIDFor(null, itemStack.getItem(), false);
+        }
+        ModifierUtils.setItemStackAttribute(attributeID, itemStack);
+        return true;
+    }
+}
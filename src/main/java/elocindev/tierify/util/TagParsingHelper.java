@@ -1,11 +1,15 @@
 package elocindev.tierify.util;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.minecraft.item.Item;
 import net.minecraft.registry.Registries;
 import net.minecraft.registry.RegistryKeys;
+import net.minecraft.registry.entry.RegistryEntry;
 import net.minecraft.registry.tag.TagKey;
 import net.minecraft.util.Identifier;
 
@@ -14,6 +18,9 @@ import net.minecraft.util.Identifier;
  * Supports the # prefix convention for tag identifiers.
  */
 public class TagParsingHelper {
+
+    // expanded tags, valid until tags are bound again
+    private static final Map<TagKey<Item>, List<Item>> EXPANDED_TAGS = new ConcurrentHashMap<>();
     
     /**
      * Checks if a string represents a tag reference (starts with #)
@@ -58,24 +65,25 @@ public class TagParsingHelper {
     }
     
     /**
-     * Expands a tag to all items that are members of that tag
+     * Expands a tag to all items that are members of that tag.
+     * Each tag is resolved once through the registry's tag entries and memoized until {@link #invalidateCache()}.
      * @param tag The TagKey to expand
-     * @return List of all items in the tag
+     * @return List of all items in the tag, must not be modified
      */
     public static List<Item> expandItemTag(TagKey<Item> tag) {
-        List<Item> items = new ArrayList<>();
-        for (Item item : Registries.ITEM) {
-            if (item.getDefaultStack().isIn(tag)) {
-                items.add(item);
+        return EXPANDED_TAGS.computeIfAbsent(tag, key -> {
+            List<Item> items = new ArrayList<>();
+            for (RegistryEntry<Item> entry : Registries.ITEM.iterateEntries(key)) {
+                items.add(entry.value());
             }
-        }
-        return items;
+            return Collections.unmodifiableList(items);
+        });
     }
     
     /**
      * Expands a tag reference string to all items in that tag
      * @param tagReference The tag reference string (e.g., "#c:swords")
-     * @return List of all items in the tag
+     * @return List of all items in the tag, must not be modified
      */
     public static List<Item> expandItemTagFromReference(String tagReference) {
         TagKey<Item> tag = createItemTag(tagReference);
@@ -88,14 +96,20 @@ public class TagParsingHelper {
      * @return List of all item identifiers in the tag
      */
     public static List<Identifier> expandItemTagToIds(TagKey<Item> tag) {
-        List<Identifier> ids = new ArrayList<>();
-        for (Item item : Registries.ITEM) {
-            if (item.getDefaultStack().isIn(tag)) {
-                ids.add(Registries.ITEM.getId(item));
-            }
+        List<Item> items = expandItemTag(tag);
+        List<Identifier> ids = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ids.add(Registries.ITEM.getId(item));
         }
         return ids;
     }
+
+    /**
+     * Drops all memoized tag expansions. Called whenever tags are bound again.
+     */
+    public static void invalidateCache() {
+        EXPANDED_TAGS.clear();
+    }
     
     /**
      * Checks if an item identifier is valid (not air)
@@ -0,0 +1,193 @@
+package elocindev.tierify.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opt-in timing of the hooks Tierify runs on the server tick.
+ * <p>
+ * Every hook counts its calls and sorts its durations into power of two nanosecond buckets. While disabled, {@link #start()}
+ * returns 0 and {@link Timer#stop(long)} returns right away, so the hooks only pay for a volatile read.
+ */
+public class TieredMetrics {
+
+    // bucket i holds durations below 2^(i + 1) ns, the last one everything above
+    private static final int BUCKETS = 32;
+
+    public static final Timer LOOT_TABLE = new Timer("loot_table");
+    public static final Timer MOB_EQUIPMENT = new Timer("mob_equipment");
+    public static final Timer EQUIPMENT_CHANGES = new Timer("equipment_changes");
+    public static final Timer ATTRIBUTE_MODIFIERS = new Timer("attribute_modifiers");
+    public static final Timer DIG_SPEED = new Timer("dig_speed");
+    public static final Timer MELEE_CRIT = new Timer("melee_crit");
+
+    public static final List<Timer> TIMERS = List.of(LOOT_TABLE, MOB_EQUIPMENT, EQUIPMENT_CHANGES, ATTRIBUTE_MODIFIERS, DIG_SPEED, MELEE_CRIT);
+
+    private static volatile boolean enabled = false;
+    private static volatile long enabledSince = 0L;
+    // thread of the running logical server, null while none runs
+    private static volatile Thread serverThread = null;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        if (enabled && !TieredMetrics.enabled) {
+            enabledSince = System.currentTimeMillis();
+        }
+        TieredMetrics.enabled = enabled;
+    }
+
+    /**
+     * Returns the start timestamp for a hook, or 0 if metrics are disabled.
+     */
+    public static long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * Returns the start timestamp for a hook that also runs on the client, or 0 if metrics are disabled or the caller is not the
+     * server thread. Keeps render thread work out of the numbers in singleplayer and on LAN hosts.
+     */
+    public static long startOnServerThread() {
+        return enabled && Thread.currentThread() == serverThread ? System.nanoTime() : 0L;
+    }
+
+    public static void setServerThread(Thread serverThread) {
+        TieredMetrics.serverThread = serverThread;
+    }
+
+    public static void reset() {
+        for (Timer timer : TIMERS) {
+            timer.reset();
+        }
+        enabledSince = System.currentTimeMillis();
+    }
+
+    /**
+     * Milliseconds since metrics were enabled or last reset.
+     */
+    public static long getRecordingMillis() {
+        return enabled ? System.currentTimeMillis() - enabledSince : 0L;
+    }
+
+    /**
+     * Writes one row per hook: call count, total, mean, max, the estimated p50 and p99 and the raw bucket counts.
+     *
+     * @param file file to write, replaced if it exists
+     */
+    public static void writeCsv(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            StringBuilder header = new StringBuilder("hook,calls,total_ns,mean_ns,max_ns,p50_ns,p99_ns");
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                header.append(",lt_").append(1L << (i + 1));
+            }
+            header.append(",ge_").append(1L << (BUCKETS - 1));
+            writer.write(header.append('\n').toString());
+
+            for (Timer timer : TIMERS) {
+                StringBuilder row = new StringBuilder(timer.getName());
+                row.append(',').append(timer.getCalls());
+                row.append(',').append(timer.getTotalNanos());
+                row.append(',').append(timer.getMeanNanos());
+                row.append(',').append(timer.getMaxNanos());
+                row.append(',').append(timer.getPercentileNanos(0.5D));
+                row.append(',').append(timer.getPercentileNanos(0.99D));
+                for (int i = 0; i < BUCKETS; i++) {
+                    row.append(',').append(timer.buckets.get(i));
+                }
+                writer.write(row.append('\n').toString());
+            }
+        }
+    }
+
+    public static class Timer {
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records the time passed since the given {@link TieredMetrics#start()} timestamp.
+         */
+        public void stop(long start) {
+            if (start == 0L) {
+                return;
+            }
+            long nanos = Math.max(0L, System.nanoTime() - start);
+            calls.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            int bucket = nanos == 0L ? 0 : 63 - Long.numberOfLeadingZeros(nanos);
+            buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+        }
+
+        private void reset() {
+            calls.reset();
+            totalNanos.reset();
+            maxNanos.set(0L);
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0L);
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getTotalNanos() {
+            return totalNanos.sum();
+        }
+
+        public long getMeanNanos() {
+            long count = getCalls();
+            return count == 0L ? 0L : getTotalNanos() / count;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos.get();
+        }
+
+        /**
+         * Estimates a percentile as the upper bound of the bucket it falls into.
+         */
+        public long getPercentileNanos(double percentile) {
+            long count = 0L;
+            long[] snapshot = new long[BUCKETS];
+            for (int i = 0; i < BUCKETS; i++) {
+                snapshot[i] = buckets.get(i);
+                count += snapshot[i];
+            }
+            if (count == 0L) {
+                return 0L;
+            }
+            long target = (long) Math.ceil(count * percentile);
+            long seen = 0L;
+            for (int i = 0; i < BUCKETS - 1; i++) {
+                seen += snapshot[i];
+                if (seen >= target) {
+                    return 1L << (i + 1);
+                }
+            }
+            return getMaxNanos();
+        }
+    }
+}
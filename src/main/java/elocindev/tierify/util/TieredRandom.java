@@ -0,0 +1,51 @@
+package elocindev.tierify.util;
+
+import org.jetbrains.annotations.Nullable;
+
+import elocindev.tierify.Tierify;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.random.Random;
+import net.minecraft.util.math.random.RandomSeed;
+import net.minecraft.util.math.random.Xoroshiro128PlusPlusRandom;
+
+/**
+ * Picks the random source used for tier rolls.
+ * <p>
+ * Callers pass whatever random their context already owns (loot context, entity, player). Without one, a per thread
+ * xoroshiro generator is used so parallel worldgen threads never share a seed source. With {@code deterministicRolls}
+ * enabled, rolls that know their position are seeded from the world seed and that position instead.
+ */
+public class TieredRandom {
+
+    private static final ThreadLocal<Random> THREAD_RANDOM = ThreadLocal.withInitial(() -> new Xoroshiro128PlusPlusRandom(RandomSeed.getSeed()));
+
+    /**
+     * Returns the random of the current thread. Must not be handed to other threads.
+     */
+    public static Random get() {
+        return THREAD_RANDOM.get();
+    }
+
+    /**
+     * Returns the given random, or the random of the current thread if there is none.
+     */
+    public static Random orThread(@Nullable Random random) {
+        return random != null ? random : get();
+    }
+
+    /**
+     * Returns the random to roll with for stacks generated at a position.
+     *
+     * @param world         world the stacks are generated in, may be null if unknown
+     * @param pos           position the stacks are generated at, may be null if unknown
+     * @param contextRandom random owned by the calling context, may be null
+     * @return a random that is reproducible from world seed and position if deterministic rolls are enabled
+     */
+    public static Random forPosition(@Nullable ServerWorld world, @Nullable BlockPos pos, @Nullable Random contextRandom) {
+        if (Tierify.CONFIG.deterministicRolls && world != null && pos != null) {
+            return new Xoroshiro128PlusPlusRandom(world.getSeed()).nextSplitter().split(pos);
+        }
+        return orThread(contextRandom);
+    }
+}
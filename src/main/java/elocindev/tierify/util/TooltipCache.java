@@ -0,0 +1,103 @@
+package elocindev.tierify.util;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jetbrains.annotations.Nullable;
+
+import elocindev.tierify.Tierify;
+import net.fabricmc.api.EnvType;
+import net.fabricmc.api.Environment;
+import net.minecraft.client.MinecraftClient;
+import net.minecraft.client.gui.screen.Screen;
+import net.minecraft.client.item.TooltipContext;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.text.Text;
+
+/**
+ * Least recently used cache of finished tooltips of tiered stacks.
+ * <p>
+ * Tooltips are keyed on the item, its nbt, the tooltip flags and the held modifier keys, since other listeners may add lines
+ * while shift, control or alt is down. A miss marks the stack in {@link #lookup}, and the finished lines are stored from a
+ * return callback of {@code getTooltip} that is applied after every other mixin, so lines added at its return are kept. The cache is dropped when the attributes change, on
+ * resource reloads (which includes language changes) and when the client config is saved.
+ * Only used on the render thread, tooltips built elsewhere (e.g. by search indexing of recipe viewers) bypass the cache.
+ */
+@Environment(EnvType.CLIENT)
+public class TooltipCache {
+
+    private static final int MAX_SIZE = 256;
+
+    private static final Map<Key, List<Text>> CACHE = new LinkedHashMap<>(MAX_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<Text>> eldest) {
+            return size() > MAX_SIZE;
+        }
+    };
+
+    private static long cachedVersion = -1L;
+
+    // stack whose tooltip is currently built after a miss, together with its key
+    @Nullable
+    private static Pending pending = null;
+
+    /**
+     * Returns a copy of the cached tooltip of the stack, or null if it has to be built. On a miss the stack is remembered so
+     * {@link #store} can cache the result.
+     */
+    @Nullable
+    public static List<Text> lookup(ItemStack itemStack, @Nullable PlayerEntity player, TooltipContext context) {
+        if (!MinecraftClient.getInstance().isOnThread()) {
+            return null;
+        }
+        pending = null;
+        if (!Tierify.CLIENT_CONFIG.tooltipCache || itemStack.getSubNbt(Tierify.NBT_SUBTAG_KEY) == null) {
+            return null;
+        }
+        long version = Tierify.ATTRIBUTE_DATA_LOADER.getClientSnapshot().getVersion();
+        if (version != cachedVersion) {
+            CACHE.clear();
+            cachedVersion = version;
+        }
+
+        Key key = new Key(itemStack.getItem(), itemStack.getNbt(), context.isAdvanced(), context.isCreative(), player != null, Screen.hasShiftDown(), Screen.hasControlDown(),
+                Screen.hasAltDown());
+        List<Text> lines = CACHE.get(key);
+        if (lines != null) {
+            return new ArrayList<>(lines);
+        }
+        pending = new Pending(itemStack, key);
+        return null;
+    }
+
+    /**
+     * Caches the finished lines of the stack marked by the last {@link #lookup} miss. Called when {@code getTooltip} returns.
+     */
+    public static void store(ItemStack itemStack, List<Text> lines) {
+        Pending current = pending;
+        if (current == null || itemStack != current.stack() || !MinecraftClient.getInstance().isOnThread()) {
+            return;
+        }
+        pending = null;
+        Key key = current.key();
+        // the key of a lookup refers to the live nbt, the stored one gets its own copy
+        CACHE.put(new Key(key.item(), key.nbt() == null ? null : key.nbt().copy(), key.advanced(), key.creative(), key.withPlayer(), key.shift(), key.control(), key.alt()),
+                new ArrayList<>(lines));
+    }
+
+    public static void clear() {
+        CACHE.clear();
+        pending = null;
+    }
+
+    private record Key(Item item, @Nullable NbtCompound nbt, boolean advanced, boolean creative, boolean withPlayer, boolean shift, boolean control, boolean alt) {
+    }
+
+    private record Pending(ItemStack stack, Key key) {
+    }
+}